@@ -2,6 +2,7 @@ package com.architos.auth;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -25,4 +26,15 @@ public class AuthenticationController {
                 .body(response);
     }
 
+    @PostMapping("event-ticket")
+    public EventStreamTicket issueEventStreamTicket(Authentication authentication) {
+        return authenticationService.issueEventStreamTicket(authentication);
+    }
+
+    @PostMapping("revoke")
+    public ResponseEntity<Void> revoke(Authentication authentication) {
+        authenticationService.revokeTokens(authentication);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -3,25 +3,37 @@ package com.architos.auth;
 import com.architos.customer.Customer;
 import com.architos.customer.CustomerDTO;
 import com.architos.customer.CustomerDTOMapper;
+import com.architos.customer.CustomerEventStreamConfig;
 import com.architos.jwt.JWTUtil;
+import com.architos.jwt.TokenVersionService;
+import com.architos.jwt.VerifiedToken;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 @Service
 public class AuthenticationService {
 
     private final AuthenticationManager authenticationManager;
     private final CustomerDTOMapper customerDTOMapper;
     private final JWTUtil jwtUtil;
+    private final TokenVersionService tokenVersionService;
+    private final CustomerEventStreamConfig eventStreamConfig;
 
     public AuthenticationService(AuthenticationManager authenticationManager,
                                  CustomerDTOMapper customerDTOMapper,
-                                 JWTUtil jwtUtil) {
+                                 JWTUtil jwtUtil,
+                                 TokenVersionService tokenVersionService,
+                                 CustomerEventStreamConfig eventStreamConfig) {
         this.authenticationManager = authenticationManager;
         this.customerDTOMapper = customerDTOMapper;
         this.jwtUtil = jwtUtil;
+        this.tokenVersionService = tokenVersionService;
+        this.eventStreamConfig = eventStreamConfig;
     }
 
     public AuthenticationResponse login(AuthenticationRequest request) {
@@ -33,8 +45,44 @@ public class AuthenticationService {
         );
         Customer principal = (Customer) authentication.getPrincipal();
         CustomerDTO customerDTO = customerDTOMapper.apply(principal);
-        String token = jwtUtil.issueToken(customerDTO.username(), customerDTO.roles());
+        String token = jwtUtil.issueToken(
+                customerDTO.username(),
+                customerDTO.id(),
+                tokenVersionService.currentVersion(customerDTO.id()),
+                customerDTO.roles());
         return new AuthenticationResponse(token, customerDTO);
     }
 
+    public void revokeTokens(Authentication authentication) {
+        Integer customerId = authenticatedCustomerId(authentication);
+        if (customerId == null) {
+            throw new InsufficientAuthenticationException("token does not identify a customer");
+        }
+        tokenVersionService.revokeTokens(customerId);
+    }
+
+    /**
+     * Issues a ticket for the customer event stream, carrying the identity
+     * (and token version) of the bearer token the request came with.
+     */
+    public EventStreamTicket issueEventStreamTicket(Authentication authentication) {
+        if (!(authentication.getCredentials() instanceof VerifiedToken token)) {
+            throw new InsufficientAuthenticationException("a bearer token is required");
+        }
+        Instant expiresAt = Instant.now().plus(eventStreamConfig.getTicketTtl());
+        return new EventStreamTicket(
+                jwtUtil.issueTicket(token, JWTUtil.EVENT_STREAM_PURPOSE, expiresAt),
+                expiresAt);
+    }
+
+    private static Integer authenticatedCustomerId(Authentication authentication) {
+        if (authentication.getCredentials() instanceof VerifiedToken token && token.userId() != null) {
+            return token.userId();
+        }
+        if (authentication.getPrincipal() instanceof Customer customer) {
+            return customer.getId();
+        }
+        return null;
+    }
+
 }
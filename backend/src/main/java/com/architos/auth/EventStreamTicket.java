@@ -0,0 +1,12 @@
+package com.architos.auth;
+
+import java.time.Instant;
+
+/**
+ * Opens {@code GET /api/v1/customers/events?ticket=...} once before
+ * {@code expiresAt}; reconnects need a fresh ticket.
+ */
+public record EventStreamTicket(
+        String ticket,
+        Instant expiresAt) {
+}
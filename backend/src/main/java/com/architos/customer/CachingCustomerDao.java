@@ -0,0 +1,261 @@
+package com.architos.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of another {@link CustomerDao}. Single customer
+ * lookups by id and email are cached (positive results only, so a freshly
+ * registered customer is never hidden behind a cached miss) and every
+ * mutation evicts the affected entries, then announces the eviction with a
+ * {@link CustomerInvalidationEvent} so other nodes can follow. Bulk reads go
+ * straight to the delegate.
+ */
+@Repository("cached")
+public class CachingCustomerDao implements CustomerDao {
+
+    private final CustomerDao delegate;
+    private final Cache<Integer, Customer> customersById;
+    private final Cache<String, Customer> customersByEmail;
+    private final ConcurrentMap<Integer, String> emailsById = new ConcurrentHashMap<>();
+    private final Counter invalidationCounter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CachingCustomerDao(@Qualifier("jdbc") CustomerDao delegate,
+            CustomerCacheConfig cacheConfig,
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher eventPublisher) {
+        this.delegate = delegate;
+        this.eventPublisher = eventPublisher;
+        this.customersById = cacheBuilder(cacheConfig).build();
+        this.customersByEmail = cacheBuilder(cacheConfig)
+                // runs on the caller so the index never outlives its entry;
+                // the two-argument remove keeps a newer mapping of the id
+                .executor(Runnable::run)
+                .<String, Customer>removalListener((email, customer, cause) -> {
+                    if (customer != null) {
+                        emailsById.remove(customer.getId(), email);
+                    }
+                })
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, customersById, "customers_by_id");
+        CaffeineCacheMetrics.monitor(meterRegistry, customersByEmail, "customers_by_email");
+        this.invalidationCounter = Counter.builder("customer_cache_invalidations_total")
+                .description("Total number of customer cache invalidations caused by writes")
+                .register(meterRegistry);
+    }
+
+    private static Caffeine<Object, Object> cacheBuilder(CustomerCacheConfig cacheConfig) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaxSize())
+                .expireAfterWrite(cacheConfig.getTtl())
+                .recordStats();
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit) {
+        return delegate.selectCustomersAfter(afterId, limit);
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit, Set<CustomerField> fields) {
+        return delegate.selectCustomersAfter(afterId, limit, fields);
+    }
+
+    @Override
+    public Stream<CustomerDTO> streamAllCustomers() {
+        return delegate.streamAllCustomers();
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String term, int limit) {
+        return delegate.searchCustomers(term, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Integer id) {
+        // Caffeine makes an invalidation of a key wait for an in-flight load of
+        // that key, so a load racing with a write can't re-install a stale row
+        Customer customer = customersById.get(id, key -> delegate.selectCustomerById(key)
+                .map(CachingCustomerDao::copyOf)
+                .orElse(null));
+        return Optional.ofNullable(customer).map(CachingCustomerDao::copyOf);
+    }
+
+    @Override
+    public Optional<Integer> selectCustomerVersion(Integer id) {
+        // never cached: conditional requests must see the committed version,
+        // and the primary key lookup is already cheap
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Integer> ids) {
+        List<Customer> customers = new ArrayList<>(ids.size());
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : ids) {
+            Customer cached = customersById.getIfPresent(id);
+            if (cached != null) {
+                customers.add(copyOf(cached));
+            } else {
+                misses.add(id);
+            }
+        }
+        // misses are fetched in one query but not cached: a bulk put has no
+        // per-key guard against a concurrent write the way get(key, loader) has
+        if (!misses.isEmpty()) {
+            customers.addAll(delegate.selectCustomersByIds(misses));
+        }
+        return customers;
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        try {
+            return delegate.insertCustomer(customer);
+        } finally {
+            evict(customer.getId(), customer.getEmail());
+        }
+    }
+
+    @Override
+    public List<Optional<Integer>> insertCustomers(List<Customer> customers) {
+        try {
+            return delegate.insertCustomers(customers);
+        } finally {
+            // only positive lookups are cached, so brand new emails can't be
+            // cached anywhere; a local sweep is enough and skips one
+            // broadcast per row
+            customers.forEach(customer -> evictLocally(null, customer.getEmail()));
+        }
+    }
+
+    @Override
+    public boolean existsCustomerWithEmail(String email) {
+        return selectUserByEmail(email).isPresent();
+    }
+
+    @Override
+    public boolean existsCustomerById(Integer customerId) {
+        return selectCustomerById(customerId).isPresent();
+    }
+
+    @Override
+    public void deleteCustomerById(Integer customerId) {
+        try {
+            delegate.deleteCustomerById(customerId);
+        } finally {
+            evict(customerId, null);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        try {
+            delegate.updateCustomer(update);
+        } finally {
+            evict(update.getId(), update.getEmail());
+        }
+    }
+
+    @Override
+    public Optional<Customer> patchCustomer(Integer customerId,
+                                            CustomerUpdateRequest patch,
+                                            Integer expectedVersion) {
+        try {
+            return delegate.patchCustomer(customerId, patch, expectedVersion);
+        } finally {
+            evict(customerId, patch.email());
+        }
+    }
+
+    @Override
+    public Optional<Customer> selectUserByEmail(String email) {
+        Customer customer = customersByEmail.get(email, key -> delegate.selectUserByEmail(key)
+                .map(loaded -> {
+                    emailsById.put(loaded.getId(), key);
+                    return copyOf(loaded);
+                })
+                .orElse(null));
+        return Optional.ofNullable(customer).map(CachingCustomerDao::copyOf);
+    }
+
+    @Override
+    public void updateCustomerProfileImageId(String profileImageId, Integer customerId) {
+        try {
+            delegate.updateCustomerProfileImageId(profileImageId, customerId);
+        } finally {
+            evict(customerId, null);
+        }
+    }
+
+    @EventListener(condition = "#event.remote()")
+    public void onRemoteInvalidation(CustomerInvalidationEvent event) {
+        if (event.flushAll()) {
+            customersById.invalidateAll();
+            customersByEmail.invalidateAll();
+            invalidationCounter.increment();
+            return;
+        }
+        event.customerIds().forEach(customerId -> evictLocally(customerId, null));
+        event.emails().forEach(email -> evictLocally(null, email));
+    }
+
+    private void evict(Integer customerId, String email) {
+        evictLocally(customerId, email);
+        eventPublisher.publishEvent(CustomerInvalidationEvent.local(customerId, email));
+    }
+
+    /**
+     * Drops every cached view of a customer. Entries under a previous email
+     * are found through the id entry, or through the id-to-email index when
+     * the id entry has already expired.
+     */
+    private void evictLocally(Integer customerId, String email) {
+        if (customerId != null) {
+            Customer previous = customersById.asMap().remove(customerId);
+            if (previous != null) {
+                customersByEmail.invalidate(previous.getEmail());
+            }
+            String indexed = emailsById.remove(customerId);
+            if (indexed != null) {
+                customersByEmail.invalidate(indexed);
+            }
+        }
+        if (email != null) {
+            customersByEmail.invalidate(email);
+        }
+        invalidationCounter.increment();
+    }
+
+    // Customer is mutable, so callers never get a reference to a cached instance
+    static Customer copyOf(Customer customer) {
+        Customer copy = new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getPassword(),
+                customer.getAge(),
+                customer.getGender(),
+                customer.getProfileImageId());
+        copy.setVersion(customer.getVersion());
+        return copy;
+    }
+}
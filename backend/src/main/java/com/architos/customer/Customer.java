@@ -1,6 +1,8 @@
 package com.architos.customer;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -26,6 +28,11 @@ import java.util.Objects;
 )
 public class Customer implements UserDetails {
 
+    static final List<String> ROLES = List.of("ROLE_USER");
+    private static final List<GrantedAuthority> AUTHORITIES = ROLES.stream()
+            .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+            .toList();
+
     @Id
     @SequenceGenerator(
             name = "customer_id_seq",
@@ -66,6 +73,15 @@ public class Customer implements UserDetails {
     )
     private String profileImageId;
 
+    // maintained by the customer_version trigger, re-read after every write
+    @Generated(GenerationTime.ALWAYS)
+    @Column(
+            nullable = false,
+            insertable = false,
+            updatable = false
+    )
+    private int version;
+
     public Customer() {
     }
 
@@ -154,9 +170,17 @@ public class Customer implements UserDetails {
         this.profileImageId = profileImageId;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        return AUTHORITIES;
     }
 
     @Override
@@ -211,6 +235,7 @@ public class Customer implements UserDetails {
                 ", gender=" + gender +
                 ", password='" + password + '\'' +
                 ", profileImageId='" + profileImageId + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,20 @@
+package com.architos.customer;
+
+public record CustomerBatchResult(
+        int index,
+        String email,
+        Status status,
+        Integer id,
+        String error
+) {
+
+    public CustomerBatchResult(int index, String email, Status status, Integer id) {
+        this(index, email, status, id, null);
+    }
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+}
@@ -0,0 +1,127 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import com.architos.security.OffloadingPasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Registers many customers in one call: passwords are hashed in parallel on
+ * the hashing pool and rows go to the database in multi-row inserts. Each row
+ * gets its own CREATED, DUPLICATE or INVALID result instead of failing the
+ * batch.
+ */
+@Service
+public class CustomerBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerBatchService.class);
+
+    // the hashing deadline grows with the batch (password.hashing.batch-item-timeout)
+    static final int MAX_BATCH_SIZE = 5000;
+
+    private final CustomerDao customerDao;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerBatchService(@Qualifier("cached") CustomerDao customerDao,
+            OffloadingPasswordEncoder passwordEncoder,
+            ApplicationEventPublisher eventPublisher) {
+        this.customerDao = customerDao;
+        this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CustomerBatchResponse registerCustomers(List<CustomerRegistrationRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new RequestValidationException(
+                    "batch size must be between 1 and %s".formatted(MAX_BATCH_SIZE));
+        }
+
+        // rows the table would reject are reported here, so they neither
+        // cost a hash nor abort the insert of the valid ones
+        CustomerBatchResult[] results = new CustomerBatchResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i));
+            if (error == null) {
+                validIndexes.add(i);
+            } else {
+                results[i] = new CustomerBatchResult(
+                        i, requests.get(i) == null ? null : requests.get(i).email(),
+                        CustomerBatchResult.Status.INVALID, null, error);
+            }
+        }
+
+        int created = 0;
+        if (!validIndexes.isEmpty()) {
+            List<String> passwordHashes = passwordEncoder.encodeAll(
+                    validIndexes.stream().map(i -> requests.get(i).password()).toList());
+
+            List<Customer> customers = new ArrayList<>(validIndexes.size());
+            for (int i = 0; i < validIndexes.size(); i++) {
+                CustomerRegistrationRequest request = requests.get(validIndexes.get(i));
+                customers.add(new Customer(
+                        request.name(),
+                        request.email(),
+                        passwordHashes.get(i),
+                        request.age(),
+                        request.gender()));
+            }
+
+            List<Optional<Integer>> ids = customerDao.insertCustomers(customers);
+
+            for (int i = 0; i < ids.size(); i++) {
+                int index = validIndexes.get(i);
+                Integer id = ids.get(i).orElse(null);
+                if (id != null) {
+                    created++;
+                    eventPublisher.publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, id));
+                }
+                results[index] = new CustomerBatchResult(
+                        index,
+                        requests.get(index).email(),
+                        id != null ? CustomerBatchResult.Status.CREATED : CustomerBatchResult.Status.DUPLICATE,
+                        id);
+            }
+        }
+
+        int invalid = requests.size() - validIndexes.size();
+        int duplicates = validIndexes.size() - created;
+        logger.info("Batch registration finished - requested: {}, created: {}, duplicates: {}, invalid: {}",
+                requests.size(), created, duplicates, invalid);
+        return new CustomerBatchResponse(created, duplicates, invalid, List.of(results));
+    }
+
+    private static String validate(CustomerRegistrationRequest request) {
+        if (request == null) {
+            return "customer is required";
+        }
+        if (isBlank(request.name())) {
+            return "name is required";
+        }
+        if (isBlank(request.email())) {
+            return "email is required";
+        }
+        if (isBlank(request.password())) {
+            return "password is required";
+        }
+        if (request.age() == null || request.age() < 0) {
+            return "age must be zero or more";
+        }
+        if (request.gender() == null) {
+            return "gender is required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
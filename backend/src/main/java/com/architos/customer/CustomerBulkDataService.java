@@ -0,0 +1,141 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * CSV import and export through PostgreSQL COPY, streamed straight between
+ * the HTTP body and the database connection. Imports land in a temporary
+ * staging table first and are merged into customer with the same
+ * ON CONFLICT (email) rule as registration.
+ * <p>
+ * Columns are {@code name,email,password,age,gender} with a header row. The
+ * password column must already hold a BCrypt hash; re-hashing a million rows
+ * would dwarf the load itself.
+ */
+@Service
+public class CustomerBulkDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerBulkDataService.class);
+
+    private static final String EXPORT_SQL = """
+            COPY (
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM customer
+                ORDER BY id
+            ) TO STDOUT WITH (FORMAT csv, HEADER true)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerBulkDataService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CustomerImportResult importCustomers(InputStream csv) {
+        // the staging table is ON COMMIT DROP, so COPY, validation and merge
+        // must all run on one connection inside one transaction
+        CustomerImportResult result = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("""
+                    CREATE TEMPORARY TABLE customer_import (
+                        ord BIGINT GENERATED ALWAYS AS IDENTITY,
+                        name TEXT,
+                        email TEXT,
+                        password TEXT,
+                        age INT,
+                        gender TEXT
+                    ) ON COMMIT DROP
+                    """);
+
+            long rows = withCopyManager(copyManager -> copyManager.copyIn("""
+                    COPY customer_import (name, email, password, age, gender)
+                    FROM STDIN WITH (FORMAT csv, HEADER true)
+                    """, csv));
+
+            Integer invalid = jdbcTemplate.queryForObject("""
+                    SELECT count(*)
+                    FROM customer_import
+                    WHERE name IS NULL
+                    OR email IS NULL
+                    OR age IS NULL OR age < 0
+                    OR gender IS NULL OR gender NOT IN ('MALE', 'FEMALE')
+                    OR password IS NULL OR password !~ '^\\$2[aby]?\\$[0-9]{2}\\$'
+                    """, Integer.class);
+            if (invalid != null && invalid > 0) {
+                throw new RequestValidationException(
+                        "%s of %s rows are incomplete, have a negative age or a password that is not a BCrypt hash"
+                                .formatted(invalid, rows));
+            }
+
+            // DISTINCT ON keeps the first row per email (ord is the line
+            // order COPY filled in) so repeats inside the file count as
+            // duplicates rather than failing the merge
+            int imported = jdbcTemplate.update("""
+                    INSERT INTO customer(name, email, password, age, gender)
+                    SELECT DISTINCT ON (email) name, email, password, age, gender
+                    FROM customer_import
+                    ORDER BY email, ord
+                    ON CONFLICT (email) DO NOTHING
+                    """);
+            return new CustomerImportResult(rows, imported, rows - imported);
+        });
+
+        logger.info("Customer CSV import finished - rows: {}, imported: {}, duplicates: {}",
+                result.rows(), result.imported(), result.duplicates());
+        if (result.imported() > 0) {
+            // one event for the whole import; a CREATED per row would
+            // overflow every subscriber's buffer
+            eventPublisher.publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.IMPORTED, null));
+        }
+        return result;
+    }
+
+    public long exportCustomers(OutputStream outputStream) {
+        long exported = withCopyManager(copyManager -> copyManager.copyOut(EXPORT_SQL, outputStream));
+        logger.info("Customer CSV export finished - rows: {}", exported);
+        return exported;
+    }
+
+    private long withCopyManager(CopyCallback callback) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            return callback.copy(copyManager);
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("COPY", null, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CopyCallback {
+        long copy(CopyManager copyManager) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package com.architos.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "customer.cache")
+public class CustomerCacheConfig {
+
+    private long maxSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private Duration userDetailsTtl = Duration.ofSeconds(60);
+    private Invalidation invalidation = new Invalidation();
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getUserDetailsTtl() {
+        return userDetailsTtl;
+    }
+
+    public void setUserDetailsTtl(Duration userDetailsTtl) {
+        this.userDetailsTtl = userDetailsTtl;
+    }
+
+    public Invalidation getInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(Invalidation invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    public static class Invalidation {
+
+        /**
+         * Broadcast evictions to the other instances through
+         * {@link CustomerInvalidationBus}.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
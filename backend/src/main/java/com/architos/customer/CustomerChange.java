@@ -0,0 +1,19 @@
+package com.architos.customer;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed. {@code customer} holds the current state for
+ * an upsert and is null for a delete.
+ */
+public record CustomerChange(
+        Integer id,
+        Operation operation,
+        Instant changedAt,
+        CustomerDTO customer
+) {
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+}
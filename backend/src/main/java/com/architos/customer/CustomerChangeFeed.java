@@ -0,0 +1,14 @@
+package com.architos.customer;
+
+import java.util.List;
+
+/**
+ * A page of the change feed. {@code next} is always set: clients keep
+ * following it while {@code hasMore} is true, then poll with it later.
+ */
+public record CustomerChangeFeed(
+        List<CustomerChange> changes,
+        String next,
+        boolean hasMore
+) {
+}
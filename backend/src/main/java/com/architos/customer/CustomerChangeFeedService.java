@@ -0,0 +1,102 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Incremental change feed over customer and customer_tombstone, both stamped
+ * with the writing transaction by triggers (V6, V9). Changes are returned in
+ * (xact_id, id) order after the client's watermark, so a mirror only pays
+ * for what changed since its last sync.
+ */
+@Service
+public class CustomerChangeFeedService {
+
+    static final int DEFAULT_LIMIT = 500;
+    static final int MAX_LIMIT = 1000;
+
+    // each branch is ordered and limited on its own (xact_id, id) index
+    // before the two are merged; rows of transactions at or above the
+    // snapshot xmin wait, since an older transaction still in progress may
+    // commit rows below them
+    private static final String CHANGES_SQL = """
+            SELECT * FROM (
+                (SELECT id, name, email, age, gender, profile_image_id,
+                        updated_at AS changed_at, xact_id, false AS deleted
+                 FROM customer
+                 WHERE (xact_id, id) > (CAST(? AS xid8), ?)
+                 AND xact_id < pg_snapshot_xmin(pg_current_snapshot())
+                 ORDER BY xact_id, id
+                 LIMIT ?)
+                UNION ALL
+                (SELECT id, NULL, NULL, NULL, NULL, NULL,
+                        deleted_at AS changed_at, xact_id, true AS deleted
+                 FROM customer_tombstone
+                 WHERE (xact_id, id) > (CAST(? AS xid8), ?)
+                 AND xact_id < pg_snapshot_xmin(pg_current_snapshot())
+                 ORDER BY xact_id, id
+                 LIMIT ?)
+            ) changes
+            ORDER BY xact_id, id
+            LIMIT ?
+            """;
+
+    private record Row(long xactId, CustomerChange change) {
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> {
+        int id = rs.getInt("id");
+        long xactId = Long.parseLong(rs.getString("xact_id"));
+        Instant changedAt = rs.getObject("changed_at", OffsetDateTime.class).toInstant();
+        if (rs.getBoolean("deleted")) {
+            return new Row(xactId, new CustomerChange(id, CustomerChange.Operation.DELETE, changedAt, null));
+        }
+        CustomerDTO customer = new CustomerDTO(
+                id,
+                rs.getString("name"),
+                rs.getString("email"),
+                Gender.valueOf(rs.getString("gender")),
+                rs.getInt("age"),
+                rs.getString("profile_image_id"));
+        return new Row(xactId, new CustomerChange(id, CustomerChange.Operation.UPSERT, changedAt, customer));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerChangeFeedService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public CustomerChangeFeed getChanges(String since, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_LIMIT));
+        }
+        CustomerChangeToken watermark = since == null || since.isBlank()
+                ? CustomerChangeToken.START
+                : CustomerChangeToken.decode(since);
+
+        String xactId = Long.toString(watermark.xactId());
+        // one extra row tells whether another page is ready right now
+        int fetch = pageSize + 1;
+        List<Row> rows = jdbcTemplate.query(CHANGES_SQL, ROW_MAPPER,
+                xactId, watermark.id(), fetch,
+                xactId, watermark.id(), fetch,
+                fetch);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Row> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Row last = page.isEmpty() ? null : page.get(page.size() - 1);
+        CustomerChangeToken next = last == null
+                ? watermark
+                : new CustomerChangeToken(last.xactId(), last.change().id());
+        return new CustomerChangeFeed(page.stream().map(Row::change).toList(), next.encode(), hasMore);
+    }
+}
@@ -0,0 +1,44 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for the change feed: the id of the transaction
+ * that wrote the last change a client has seen, and the customer id.
+ */
+record CustomerChangeToken(long xactId, int id) {
+
+    private static final String PREFIX = "xid:";
+
+    static final CustomerChangeToken START = new CustomerChangeToken(0, 0);
+
+    String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + xactId + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerChangeToken decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("unexpected token prefix");
+            }
+            String[] parts = value.substring(PREFIX.length()).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("malformed token");
+            }
+            long xactId = Long.parseLong(parts[0]);
+            int id = Integer.parseInt(parts[1]);
+            if (xactId < 0 || id < 0) {
+                throw new IllegalArgumentException("negative token value");
+            }
+            return new CustomerChangeToken(xactId, id);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid change token [%s]".formatted(token));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.architos.customer;
+
+/**
+ * Raised by {@link CustomerService} after a customer mutation and pushed to
+ * browsers by {@link CustomerEventStream}. It carries only the id; clients
+ * fetch the customer (with its ETag) if they care about the new state.
+ * {@code IMPORTED} stands for a whole CSV import and has no id; clients catch
+ * up through the change feed.
+ */
+public record CustomerChangedEvent(Type type, Integer customerId) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        PROFILE_IMAGE_UPDATED,
+        IMPORTED
+    }
+}
@@ -2,18 +2,30 @@ package com.architos.customer;
 
 import com.architos.exception.FileSizeExceededException;
 import com.architos.exception.InvalidFileTypeException;
+import com.architos.exception.PreconditionFailedException;
+import com.architos.exception.RangeNotSatisfiableException;
 import com.architos.exception.ResourceNotFoundException;
 import com.architos.exception.S3ServiceException;
 import com.architos.jwt.JWTUtil;
+import com.architos.s3.ByteRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("api/v1/customers")
@@ -21,36 +33,146 @@ public class CustomerController {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerController.class);
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
+    private final CustomerBatchService customerBatchService;
+    private final CustomerBulkDataService customerBulkDataService;
+    private final CustomerChangeFeedService customerChangeFeedService;
+    private final CustomerEventStream customerEventStream;
+    private final ProfileImageConfig profileImageConfig;
     private final JWTUtil jwtUtil;
 
     public CustomerController(CustomerService customerService,
+            CustomerExportService customerExportService,
+            CustomerBatchService customerBatchService,
+            CustomerBulkDataService customerBulkDataService,
+            CustomerChangeFeedService customerChangeFeedService,
+            CustomerEventStream customerEventStream,
+            ProfileImageConfig profileImageConfig,
             JWTUtil jwtUtil) {
         this.customerService = customerService;
+        this.customerExportService = customerExportService;
+        this.customerBatchService = customerBatchService;
+        this.customerBulkDataService = customerBulkDataService;
+        this.customerChangeFeedService = customerChangeFeedService;
+        this.customerEventStream = customerEventStream;
+        this.profileImageConfig = profileImageConfig;
         this.jwtUtil = jwtUtil;
     }
 
     @GetMapping
-    public List<CustomerDTO> getCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<?>> getCustomers(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+        Set<CustomerField> selected = CustomerField.parse(fields);
+        CustomerPage page = customerService.getCustomers(after, limit, selected);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        if (CustomerField.isAll(selected)) {
+            return response.body(page.customers());
+        }
+        return response.body(page.customers().stream()
+                .map(customer -> CustomerField.select(customer, selected))
+                .toList());
+    }
+
+    @GetMapping(params = "ids")
+    public CustomerLookup getCustomersByIds(
+            @RequestParam("ids") List<Integer> ids) {
+        return customerService.getCustomersByIds(ids);
+    }
+
+    @GetMapping("search")
+    public List<CustomerDTO> searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.searchCustomers(query, limit);
+    }
+
+    @GetMapping("changes")
+    public CustomerChangeFeed getCustomerChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerChangeFeedService.getChanges(since, limit);
+    }
+
+    @GetMapping(value = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CustomerChangedEvent>> streamCustomerEvents() {
+        // Spring MVC writes the Flux through servlet async, so an idle
+        // subscriber does not hold a request thread
+        return customerEventStream.subscribe();
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        StreamingResponseBody body = customerExportService::exportCustomers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping(value = "csv", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomersCsv() {
+        StreamingResponseBody body = customerBulkDataService::exportCustomers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"customers.csv\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "csv", consumes = TEXT_CSV_VALUE)
+    public CustomerImportResult importCustomersCsv(InputStream csv) {
+        return customerBulkDataService.importCustomers(csv);
     }
 
     @GetMapping("{customerId}")
-    public CustomerDTO getCustomer(
-            @PathVariable("customerId") Integer customerId) {
-        return customerService.getCustomer(customerId);
+    public ResponseEntity<?> getCustomer(
+            @PathVariable("customerId") Integer customerId,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<CustomerField> selected = CustomerField.parse(fields);
+        if (ifNoneMatch != null) {
+            // a version lookup by primary key answers polling clients
+            // without loading or serialising the customer
+            int version = customerService.getCustomerVersion(customerId);
+            if (CustomerETag.matchesNoneMatch(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(CustomerETag.of(version))
+                        .build();
+            }
+        }
+        VersionedCustomer versioned = customerService.getVersionedCustomer(customerId);
+        CustomerDTO customer = versioned.customer();
+        // single reads come from the customer cache, so only the JSON is narrowed here
+        return ResponseEntity.ok()
+                .eTag(CustomerETag.of(versioned.version()))
+                .body(CustomerField.isAll(selected) ? customer : CustomerField.select(customer, selected));
     }
 
     @PostMapping
     public ResponseEntity<?> registerCustomer(
             @RequestBody CustomerRegistrationRequest request) {
-        customerService.addCustomer(request);
-        String jwtToken = jwtUtil.issueToken(request.email(), "ROLE_USER");
+        Integer customerId = customerService.addCustomer(request);
+        // a new customer starts at token version 0
+        String jwtToken = jwtUtil.issueToken(
+                request.email(), customerId, 0, List.of("ROLE_USER"));
         return ResponseEntity.ok()
                 .header(HttpHeaders.AUTHORIZATION, jwtToken)
                 .build();
     }
 
+    @PostMapping("batch")
+    public CustomerBatchResponse registerCustomers(
+            @RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerBatchService.registerCustomers(requests);
+    }
+
     @DeleteMapping("{customerId}")
     public void deleteCustomer(
             @PathVariable("customerId") Integer customerId) {
@@ -58,10 +180,36 @@ public class CustomerController {
     }
 
     @PutMapping("{customerId}")
-    public void updateCustomer(
+    public ResponseEntity<Void> updateCustomer(
+            @PathVariable("customerId") Integer customerId,
+            @RequestBody CustomerUpdateRequest updateRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        VersionedCustomer updated = customerService.updateCustomer(
+                customerId, updateRequest, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(CustomerETag.of(updated.version()))
+                .build();
+    }
+
+    @PatchMapping("{customerId}")
+    public ResponseEntity<CustomerDTO> patchCustomer(
             @PathVariable("customerId") Integer customerId,
-            @RequestBody CustomerUpdateRequest updateRequest) {
-        customerService.updateCustomer(customerId, updateRequest);
+            @RequestBody CustomerUpdateRequest updateRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        VersionedCustomer updated = customerService.updateCustomer(
+                customerId, updateRequest, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(CustomerETag.of(updated.version()))
+                .body(updated.customer());
+    }
+
+    private static Integer expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        return CustomerETag.parseIfMatch(ifMatch)
+                .orElseThrow(() -> new PreconditionFailedException(
+                        "If-Match must be a single strong ETag"));
     }
 
     @PostMapping(value = "{customerId}/profile-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -94,23 +242,46 @@ public class CustomerController {
         }
     }
 
-    @GetMapping(value = "{customerId}/profile-image", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> getCustomerProfileImage(@PathVariable("customerId") Integer customerId) {
-        try {
-            logger.debug("Retrieving profile image for customer ID: {}", customerId);
+    @PostMapping("{customerId}/profile-image/uploads")
+    public ProfileImageUpload initiateProfileImageUpload(@PathVariable("customerId") Integer customerId,
+            @RequestBody ProfileImageUploadRequest request) {
+        // the client PUTs the bytes to the returned URL, then completes below
+        return customerService.initiateProfileImageUpload(customerId, request);
+    }
 
-            byte[] imageData = customerService.getCustomerProfileImage(customerId);
+    @PostMapping("{customerId}/profile-image/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeProfileImageUpload(@PathVariable("customerId") Integer customerId,
+            @PathVariable("uploadId") String uploadId) {
+        customerService.completeProfileImageUpload(customerId, uploadId);
+        return ResponseEntity.ok().build();
+    }
 
-            logger.debug("Successfully retrieved profile image for customer ID: {}, size: {} bytes",
-                    customerId, imageData.length);
+    @GetMapping("{customerId}/profile-image")
+    public ResponseEntity<?> getCustomerProfileImage(
+            @PathVariable("customerId") Integer customerId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        try {
+            logger.debug("Retrieving profile image for customer ID: {}, range: {}", customerId, range);
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(imageData);
+            // with a presigned URL S3 serves the bytes (and any Range) itself
+            return switch (profileImageConfig.getDelivery()) {
+                case REDIRECT -> ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(customerService.getCustomerProfileImageUrl(customerId).url().toString()))
+                        .cacheControl(CacheControl.noStore())
+                        .build();
+                case JSON -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .body(customerService.getCustomerProfileImageUrl(customerId));
+                case PROXY -> streamProfileImage(customerId, range, ifRange);
+            };
 
         } catch (ResourceNotFoundException e) {
             logger.warn("Customer or profile image not found for ID: {}, error: {}", customerId, e.getMessage());
             throw e; // Let the global exception handler handle it
+        } catch (RangeNotSatisfiableException e) {
+            logger.debug("Unsatisfiable range {} for profile image of customer ID: {}", range, customerId);
+            throw e; // Let the global exception handler handle it
         } catch (S3ServiceException e) {
             logger.error("S3 service error retrieving profile image for customer ID: {}, error: {}", customerId,
                     e.getMessage());
@@ -120,4 +291,42 @@ public class CustomerController {
             throw new S3ServiceException("Failed to retrieve profile image", e);
         }
     }
+
+    private ResponseEntity<StreamingResponseBody> streamProfileImage(Integer customerId, String range,
+            String ifRange) {
+        // several ranges or a malformed header get the whole image (RFC 9110 14.2)
+        ByteRange byteRange = range == null ? null : ByteRange.parse(range).orElse(null);
+        ProfileImage image = customerService.openCustomerProfileImage(customerId, byteRange, ifRange);
+
+        logger.debug("Streaming profile image for customer ID: {}, size: {} bytes",
+                customerId, image.contentLength());
+
+        // copied from the S3 connection to the response through one
+        // small buffer, so the first bytes go out before the last arrive
+        StreamingResponseBody body = outputStream -> {
+            try (image) {
+                StreamUtils.copy(image.content(), outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = image.isPartial()
+                ? ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, image.contentRange())
+                : ResponseEntity.ok();
+        // the ETag lets a client resume with If-Range without mixing images
+        response.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(image.eTag())
+                .contentType(imageContentType(image.contentType()));
+        if (image.contentLength() >= 0) {
+            response.contentLength(image.contentLength());
+        }
+        return response.body(body);
+    }
+
+    private static MediaType imageContentType(String contentType) {
+        // objects uploaded before the type was stored come back as binary
+        if (contentType == null || !contentType.startsWith("image/")) {
+            return MediaType.IMAGE_JPEG;
+        }
+        return MediaType.parseMediaType(contentType);
+    }
 }
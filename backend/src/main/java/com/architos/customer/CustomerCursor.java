@@ -0,0 +1,40 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for paging through customers in primary key order.
+ * Clients must treat the value as a token and hand it back unchanged.
+ */
+final class CustomerCursor {
+
+    private static final String PREFIX = "id:";
+
+    private CustomerCursor() {
+    }
+
+    static String encode(int lastSeenId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastSeenId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("unexpected cursor prefix");
+            }
+            int lastSeenId = Integer.parseInt(value.substring(PREFIX.length()));
+            if (lastSeenId < 0) {
+                throw new IllegalArgumentException("negative cursor id");
+            }
+            return lastSeenId;
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("invalid cursor [%s]".formatted(cursor));
+        }
+    }
+}
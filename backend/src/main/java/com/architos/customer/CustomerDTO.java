@@ -12,4 +12,17 @@ public record CustomerDTO (
         String username,
         String profileImageId){
 
+    /**
+     * Builds the DTO from plain columns for read projections that never load
+     * the password or a {@link Customer} entity. Every customer has the same
+     * roles and logs in with their email.
+     */
+    public CustomerDTO(Integer id,
+                       String name,
+                       String email,
+                       Gender gender,
+                       Integer age,
+                       String profileImageId) {
+        this(id, name, email, gender, age, Customer.ROLES, email, profileImageId);
+    }
 }
@@ -1,10 +1,8 @@
 package com.architos.customer;
 
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 public class CustomerDTOMapper implements Function<Customer, CustomerDTO> {
@@ -16,10 +14,7 @@ public class CustomerDTOMapper implements Function<Customer, CustomerDTO> {
                 customer.getEmail(),
                 customer.getGender(),
                 customer.getAge(),
-                customer.getAuthorities()
-                        .stream()
-                        .map(GrantedAuthority::getAuthority)
-                        .collect(Collectors.toList()),
+                Customer.ROLES,
                 customer.getUsername(),
                 customer.getProfileImageId()
         );
@@ -0,0 +1,50 @@
+package com.architos.customer;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Maps read projections straight into {@link CustomerDTO}; queries using it
+ * select no password column.
+ */
+@Component
+public class CustomerDTORowMapper implements RowMapper<CustomerDTO> {
+    @Override
+    public CustomerDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CustomerDTO(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                Gender.valueOf(rs.getString("gender")),
+                rs.getInt("age"),
+                rs.getString("profile_image_id"));
+    }
+
+    /**
+     * A mapper for queries that select only some of the columns; fields whose
+     * column was not selected are left null.
+     */
+    public RowMapper<CustomerDTO> forColumns(Set<String> columns) {
+        boolean name = columns.contains("name");
+        boolean email = columns.contains("email");
+        boolean gender = columns.contains("gender");
+        boolean age = columns.contains("age");
+        boolean profileImageId = columns.contains("profile_image_id");
+        return (rs, rowNum) -> {
+            String emailValue = email ? rs.getString("email") : null;
+            return new CustomerDTO(
+                    rs.getInt("id"),
+                    name ? rs.getString("name") : null,
+                    emailValue,
+                    gender ? Gender.valueOf(rs.getString("gender")) : null,
+                    age ? rs.getInt("age") : null,
+                    Customer.ROLES,
+                    emailValue,
+                    profileImageId ? rs.getString("profile_image_id") : null);
+        };
+    }
+}
@@ -1,16 +1,70 @@
 package com.architos.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface CustomerDao {
-    List<Customer> selectAllCustomers();
+    List<CustomerDTO> selectCustomersAfter(int afterId, int limit);
+    /**
+     * Same as {@link #selectCustomersAfter(int, int)}, but implementations may
+     * read only the columns behind the given fields; the rest come back null.
+     */
+    default List<CustomerDTO> selectCustomersAfter(int afterId, int limit, Set<CustomerField> fields) {
+        return selectCustomersAfter(afterId, limit);
+    }
+    Stream<CustomerDTO> streamAllCustomers();
+    /**
+     * Customers whose name or email contains the term, or whose name is
+     * similar to it, best matches first: prefix matches, then by trigram
+     * similarity.
+     */
+    List<CustomerDTO> searchCustomers(String term, int limit);
     Optional<Customer> selectCustomerById(Integer id);
-    void insertCustomer(Customer customer);
+    /**
+     * Reads only the version column, so conditional requests can be answered
+     * without loading the customer.
+     */
+    Optional<Integer> selectCustomerVersion(Integer id);
+    /**
+     * @return the customers that exist among the given ids, in no particular order
+     */
+    List<Customer> selectCustomersByIds(Collection<Integer> ids);
+    /**
+     * Inserts the customer unless its email is already taken.
+     *
+     * @return the generated id, or empty if a customer with that email exists
+     */
+    Optional<Integer> insertCustomer(Customer customer);
+    /**
+     * Inserts every customer whose email is not taken yet, including by an
+     * earlier entry of the same list.
+     *
+     * @return one result per customer in input order: the generated id, or
+     * empty for a duplicate email
+     */
+    List<Optional<Integer>> insertCustomers(List<Customer> customers);
     boolean existsCustomerWithEmail(String email);
     boolean existsCustomerById(Integer customerId);
     void deleteCustomerById(Integer customerId);
     void updateCustomer(Customer update);
+    /**
+     * Applies the non-null fields of the patch in a single statement.
+     *
+     * @return the updated customer, or empty if no customer has that id or
+     * every patched field already holds the given value
+     */
+    default Optional<Customer> patchCustomer(Integer customerId, CustomerUpdateRequest patch) {
+        return patchCustomer(customerId, patch, null);
+    }
+    /**
+     * Like {@link #patchCustomer(Integer, CustomerUpdateRequest)}, but only
+     * applies the patch while the stored version still equals
+     * {@code expectedVersion}; {@code null} skips that check.
+     */
+    Optional<Customer> patchCustomer(Integer customerId, CustomerUpdateRequest patch, Integer expectedVersion);
     Optional<Customer> selectUserByEmail(String email);
     void updateCustomerProfileImageId(String profileImageId, Integer customerId);
 }
@@ -0,0 +1,51 @@
+package com.architos.customer;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong ETags for customers, derived from the version column, and the
+ * matching rules for {@code If-None-Match} and {@code If-Match}.
+ */
+final class CustomerETag {
+
+    private static final Pattern STRONG_VERSION_TAG = Pattern.compile("\"(\\d{1,9})\"");
+
+    private CustomerETag() {
+    }
+
+    static String of(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison as required for {@code If-None-Match}: any tag in the
+     * list, with or without {@code W/}, or {@code *}.
+     */
+    static boolean matchesNoneMatch(String ifNoneMatch, int version) {
+        String current = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the version out of a single strong {@code If-Match} tag. Weak
+     * tags and lists never match, since the update can only compare against
+     * one version.
+     */
+    static Optional<Integer> parseIfMatch(String ifMatch) {
+        Matcher matcher = STRONG_VERSION_TAG.matcher(ifMatch.trim());
+        return matcher.matches()
+                ? Optional.of(Integer.parseInt(matcher.group(1)))
+                : Optional.empty();
+    }
+}
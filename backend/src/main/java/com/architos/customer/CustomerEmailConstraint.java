@@ -0,0 +1,42 @@
+package com.architos.customer;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+import java.sql.SQLException;
+
+/**
+ * Recognises a violation of {@code customer_email_unique} in an exception
+ * chain, whether it came through Hibernate or straight from the JDBC driver.
+ * Any other integrity violation (a NOT NULL, a CHECK, another unique key) is
+ * a bug to surface, not a taken email.
+ */
+final class CustomerEmailConstraint {
+
+    static final String NAME = "customer_email_unique";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private CustomerEmailConstraint() {
+    }
+
+    static boolean isViolatedBy(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return isEmailUnique(violation.getSQLException(), violation.getConstraintName());
+            }
+            if (cause instanceof PSQLException psqlException) {
+                ServerErrorMessage message = psqlException.getServerErrorMessage();
+                return isEmailUnique(psqlException, message == null ? null : message.getConstraint());
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEmailUnique(SQLException sqlException, String constraint) {
+        return sqlException != null
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState())
+                && NAME.equalsIgnoreCase(constraint);
+    }
+}
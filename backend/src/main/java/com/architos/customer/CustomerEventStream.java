@@ -0,0 +1,104 @@
+package com.architos.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans {@link CustomerChangedEvent}s out to Server-Sent Event subscribers.
+ * <p>
+ * Every subscriber gets its own bounded buffer. A subscriber that falls
+ * {@link CustomerEventStreamConfig#getBufferSize()} events behind is
+ * disconnected rather than slowing down the publisher or the other
+ * subscribers; EventSource clients reconnect on their own and can catch up
+ * through the change feed. Changes made on other nodes arrive through
+ * {@link CustomerInvalidationBus}.
+ */
+@Component
+public class CustomerEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerEventStream.class);
+
+    // best effort: the sink never waits for a subscriber, the per-subscriber
+    // buffer below always has demand until it overflows
+    private final Sinks.Many<CustomerChangedEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final CustomerEventStreamConfig config;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter droppedSubscribers;
+
+    public CustomerEventStream(CustomerEventStreamConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        Gauge.builder("customer_event_subscribers", subscribers, AtomicInteger::get)
+                .description("Number of connected customer event stream subscribers")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("customer_event_slow_subscribers_dropped_total")
+                .description("Total number of subscribers disconnected for falling too far behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs after the surrounding transaction commits, or straight away when
+     * the mutation ran without one (auto-commit JDBC).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        emit(event);
+    }
+
+    /**
+     * Pushes the event to this node's subscribers. Also called by
+     * {@link CustomerInvalidationBus} for changes made on other nodes.
+     */
+    public void emit(CustomerChangedEvent event) {
+        Sinks.EmitResult result;
+        // the sink only accepts one emitting thread at a time
+        synchronized (sink) {
+            result = sink.tryEmitNext(event);
+        }
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            logger.warn("Could not publish customer event {}: {}", event, result);
+        }
+    }
+
+    public Flux<ServerSentEvent<CustomerChangedEvent>> subscribe() {
+        Flux<ServerSentEvent<CustomerChangedEvent>> events = sink.asFlux()
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.type().name().toLowerCase(Locale.ROOT))
+                        .build());
+        // comments keep proxies from closing idle connections and surface
+        // dead ones through a failed write
+        Flux<ServerSentEvent<CustomerChangedEvent>> heartbeats = Flux.interval(config.getHeartbeat())
+                .map(tick -> ServerSentEvent.<CustomerChangedEvent>builder()
+                        .comment("heartbeat")
+                        .build());
+
+        return Flux.defer(() -> {
+            // an overflow error would only reach a stalled subscriber after it
+            // drained its buffer, so the disconnect is a completion instead,
+            // which needs no demand
+            Sinks.Empty<Void> overflow = Sinks.empty();
+            return Flux.merge(events, heartbeats)
+                    .onBackpressureBuffer(config.getBufferSize(), dropped -> {
+                        if (overflow.tryEmitEmpty().isSuccess()) {
+                            droppedSubscribers.increment();
+                            logger.info("Disconnecting customer event subscriber that fell {} events behind",
+                                    config.getBufferSize());
+                        }
+                    }, BufferOverflowStrategy.DROP_LATEST)
+                    .takeUntilOther(overflow.asMono());
+        })
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+}
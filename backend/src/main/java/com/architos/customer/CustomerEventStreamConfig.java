@@ -0,0 +1,67 @@
+package com.architos.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "customer.events")
+public class CustomerEventStreamConfig {
+
+    // events a single subscriber may fall behind before it is disconnected
+    private int bufferSize = 256;
+    private Duration heartbeat = Duration.ofSeconds(15);
+    private Relay relay = new Relay();
+    // lifetime of the query-string tickets EventSource clients connect with
+    private Duration ticketTtl = Duration.ofSeconds(30);
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public Duration getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Relay getRelay() {
+        return relay;
+    }
+
+    public void setRelay(Relay relay) {
+        this.relay = relay;
+    }
+
+    public Duration getTicketTtl() {
+        return ticketTtl;
+    }
+
+    public void setTicketTtl(Duration ticketTtl) {
+        this.ticketTtl = ticketTtl;
+    }
+
+    public static class Relay {
+
+        /**
+         * Relay changes to subscribers on the other instances through
+         * {@link CustomerInvalidationBus}.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
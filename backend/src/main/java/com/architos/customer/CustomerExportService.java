@@ -0,0 +1,57 @@
+package com.architos.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class CustomerExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerExportService.class);
+
+    private final CustomerDao customerDao;
+    private final ObjectMapper objectMapper;
+
+    public CustomerExportService(@Qualifier("jdbc") CustomerDao customerDao,
+            ObjectMapper objectMapper) {
+        this.customerDao = customerDao;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every customer as newline-delimited JSON, one row at a time, so
+     * memory use stays flat regardless of table size. The read-only
+     * transaction keeps the server-side cursor open while the stream is drained.
+     */
+    @Transactional(readOnly = true)
+    public long exportCustomers(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<CustomerDTO> customers = customerDao.streamAllCustomers();
+             JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            Iterator<CustomerDTO> iterator = customers.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                exported++;
+            }
+            if (exported > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+        logger.info("Exported {} customers as NDJSON", exported);
+        return exported;
+    }
+}
@@ -0,0 +1,87 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Whitelist for the {@code fields} query parameter. Each field knows its JSON
+ * name, the column it is read from (roles has none) and how to take it from
+ * a {@link CustomerDTO}.
+ */
+public enum CustomerField {
+
+    ID("id", "id", CustomerDTO::id),
+    NAME("name", "name", CustomerDTO::name),
+    EMAIL("email", "email", CustomerDTO::email),
+    GENDER("gender", "gender", CustomerDTO::gender),
+    AGE("age", "age", CustomerDTO::age),
+    ROLES("roles", null, CustomerDTO::roles),
+    USERNAME("username", "email", CustomerDTO::username),
+    PROFILE_IMAGE_ID("profileImageId", "profile_image_id", CustomerDTO::profileImageId);
+
+    private static final Map<String, CustomerField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(CustomerField::jsonName, Function.identity()));
+
+    private final String jsonName;
+    private final String column;
+    private final Function<CustomerDTO, Object> accessor;
+
+    CustomerField(String jsonName, String column, Function<CustomerDTO, Object> accessor) {
+        this.jsonName = jsonName;
+        this.column = column;
+        this.accessor = accessor;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Parses a comma separated list such as {@code id,name}.
+     *
+     * @return the requested fields, or every field when the list is blank
+     */
+    public static Set<CustomerField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+        }
+        EnumSet<CustomerField> parsed = EnumSet.noneOf(CustomerField.class);
+        for (String name : fields.split(",")) {
+            CustomerField field = BY_NAME.get(name.trim());
+            if (field == null) {
+                throw new RequestValidationException(
+                        "unknown field [%s], allowed fields are %s".formatted(name.trim(), BY_NAME.keySet()));
+            }
+            parsed.add(field);
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    public static boolean isAll(Set<CustomerField> fields) {
+        return fields.size() == values().length;
+    }
+
+    /**
+     * Copies only the requested fields, in declaration order, into a map that
+     * Jackson serialises without touching the rest of the DTO.
+     */
+    public static Map<String, Object> select(CustomerDTO customer, Set<CustomerField> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (CustomerField field : fields) {
+            selected.put(field.jsonName, field.accessor.apply(customer));
+        }
+        return selected;
+    }
+}
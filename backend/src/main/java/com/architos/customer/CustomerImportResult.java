@@ -0,0 +1,8 @@
+package com.architos.customer;
+
+public record CustomerImportResult(
+        long rows,
+        long imported,
+        long duplicates
+) {
+}
@@ -0,0 +1,260 @@
+package com.architos.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fans customer cache invalidations out to every node over PostgreSQL
+ * LISTEN/NOTIFY. Local writes are published with {@code pg_notify}; a daemon
+ * thread holds a dedicated connection (outside the Hikari pool) that LISTENs
+ * on the channel and replays other nodes' messages as remote
+ * {@link CustomerInvalidationEvent}s. {@link CustomerChangedEvent}s travel
+ * the same way on a second channel and are handed to this node's
+ * {@link CustomerEventStream}, so every subscriber sees every change.
+ * <p>
+ * The two share the listener connection but are switched separately, by
+ * {@code customer.cache.invalidation.enabled} and
+ * {@code customer.events.relay.enabled}.
+ */
+@Component
+@ConditionalOnExpression("${customer.cache.invalidation.enabled:false} or ${customer.events.relay.enabled:false}")
+public class CustomerInvalidationBus implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerInvalidationBus.class);
+
+    static final String CHANNEL = "customer_invalidation";
+    static final String CHANGE_CHANNEL = "customer_change";
+    // keeps each payload well under PostgreSQL's 8000 byte NOTIFY limit
+    static final int MAX_KEYS_PER_NOTIFICATION = 100;
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long MAX_RECONNECT_BACKOFF_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final CustomerEventStream customerEventStream;
+    private final boolean invalidationEnabled;
+    private final boolean relayEnabled;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile Connection listenerConnection;
+    private Thread listenerThread;
+
+    public CustomerInvalidationBus(JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            CustomerEventStream customerEventStream,
+            CustomerCacheConfig cacheConfig,
+            CustomerEventStreamConfig eventStreamConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.customerEventStream = customerEventStream;
+        this.invalidationEnabled = cacheConfig.getInvalidation().isEnabled();
+        this.relayEnabled = eventStreamConfig.getRelay().isEnabled();
+    }
+
+    record Notification(String node, Set<Integer> ids, Set<String> emails) {
+    }
+
+    record ChangeNotification(String node, CustomerChangedEvent.Type type, Integer id) {
+    }
+
+    @EventListener(condition = "!#event.remote()")
+    public void publish(CustomerInvalidationEvent event) {
+        if (!invalidationEnabled) {
+            return;
+        }
+        for (Notification notification : split(event)) {
+            try {
+                String payload = objectMapper.writeValueAsString(notification);
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+                }, CHANNEL, payload);
+            } catch (JsonProcessingException | DataAccessException e) {
+                // the write itself already succeeded; other nodes fall back to the cache TTL
+                logger.warn("Failed to publish customer invalidation, ids: {}, error: {}",
+                        notification.ids(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Relays a change made on this node once its transaction has committed,
+     * like {@link CustomerEventStream#onCustomerChanged}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void relay(CustomerChangedEvent event) {
+        if (!relayEnabled) {
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new ChangeNotification(nodeId, event.type(), event.customerId()));
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+            }, CHANGE_CHANNEL, payload);
+        } catch (JsonProcessingException | DataAccessException e) {
+            // subscribers on other nodes can still catch up through the change feed
+            logger.warn("Failed to relay customer change {}, error: {}", event, e.getMessage());
+        }
+    }
+
+    List<Notification> split(CustomerInvalidationEvent event) {
+        List<Notification> notifications = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(event.customerIds());
+        List<String> emails = new ArrayList<>(event.emails());
+        int chunks = Math.max(1, (Math.max(ids.size(), emails.size()) + MAX_KEYS_PER_NOTIFICATION - 1)
+                / MAX_KEYS_PER_NOTIFICATION);
+        for (int i = 0; i < chunks; i++) {
+            int from = i * MAX_KEYS_PER_NOTIFICATION;
+            notifications.add(new Notification(
+                    nodeId,
+                    Set.copyOf(ids.subList(Math.min(from, ids.size()),
+                            Math.min(from + MAX_KEYS_PER_NOTIFICATION, ids.size()))),
+                    Set.copyOf(emails.subList(Math.min(from, emails.size()),
+                            Math.min(from + MAX_KEYS_PER_NOTIFICATION, emails.size())))));
+        }
+        return notifications;
+    }
+
+    void handle(String payload) {
+        try {
+            Notification notification = objectMapper.readValue(payload, Notification.class);
+            if (nodeId.equals(notification.node())) {
+                return;
+            }
+            logger.debug("Received customer invalidation from node {}, ids: {}",
+                    notification.node(), notification.ids());
+            eventPublisher.publishEvent(CustomerInvalidationEvent.remote(
+                    notification.ids() == null ? Set.of() : notification.ids(),
+                    notification.emails() == null ? Set.of() : notification.emails()));
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed customer invalidation payload: {}", payload);
+        }
+    }
+
+    void handleChange(String payload) {
+        try {
+            ChangeNotification notification = objectMapper.readValue(payload, ChangeNotification.class);
+            if (nodeId.equals(notification.node())) {
+                return;
+            }
+            customerEventStream.emit(new CustomerChangedEvent(notification.type(), notification.id()));
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed customer change payload: {}", payload);
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        boolean missedNotifications = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    if (invalidationEnabled) {
+                        statement.execute("LISTEN " + CHANNEL);
+                    }
+                    if (relayEnabled) {
+                        statement.execute("LISTEN " + CHANGE_CHANNEL);
+                    }
+                }
+                logger.info("Listening for customer notifications - invalidations: {}, changes: {}",
+                        invalidationEnabled, relayEnabled);
+                if (missedNotifications && invalidationEnabled) {
+                    // anything sent while we were disconnected is lost
+                    eventPublisher.publishEvent(CustomerInvalidationEvent.remoteFlushAll());
+                    missedNotifications = false;
+                }
+                backoffMs = 1000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            if (CHANGE_CHANNEL.equals(notification.getName())) {
+                                handleChange(notification.getParameter());
+                            } else {
+                                handle(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                missedNotifications = true;
+                logger.warn("Customer invalidation listener disconnected, retrying in {} ms, error: {}",
+                        backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_RECONNECT_BACKOFF_MS);
+            } finally {
+                listenerConnection = null;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "customer-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Connection connection = listenerConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing customer invalidation listener connection: {}", e.getMessage());
+            }
+        }
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
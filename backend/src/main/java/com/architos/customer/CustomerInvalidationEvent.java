@@ -0,0 +1,33 @@
+package com.architos.customer;
+
+import java.util.Set;
+
+/**
+ * Signals that cached copies of the given customers are stale. Local events
+ * are raised by {@link CachingCustomerDao} after a write on this node; remote
+ * events are replayed from other nodes by {@link CustomerInvalidationBus}.
+ * {@code flushAll} means the sender could not tell which customers changed.
+ */
+public record CustomerInvalidationEvent(
+        Set<Integer> customerIds,
+        Set<String> emails,
+        boolean flushAll,
+        boolean remote
+) {
+
+    public static CustomerInvalidationEvent local(Integer customerId, String email) {
+        return new CustomerInvalidationEvent(
+                customerId == null ? Set.of() : Set.of(customerId),
+                email == null ? Set.of() : Set.of(email),
+                false,
+                false);
+    }
+
+    public static CustomerInvalidationEvent remote(Set<Integer> customerIds, Set<String> emails) {
+        return new CustomerInvalidationEvent(customerIds, emails, false, true);
+    }
+
+    public static CustomerInvalidationEvent remoteFlushAll() {
+        return new CustomerInvalidationEvent(Set.of(), Set.of(), true, true);
+    }
+}
@@ -2,37 +2,136 @@ package com.architos.customer;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
 
+    // rows pulled per round trip when streaming through a server-side cursor
+    static final int STREAM_FETCH_SIZE = 500;
+    // rows per multi-row INSERT; 5 parameters each stays far below the driver's bind limit
+    static final int INSERT_CHUNK_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    private final CustomerDTORowMapper customerDTORowMapper;
 
     public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate,
-                                         CustomerRowMapper customerRowMapper) {
+                                         CustomerRowMapper customerRowMapper,
+                                         CustomerDTORowMapper customerDTORowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.customerRowMapper = customerRowMapper;
+        this.customerDTORowMapper = customerDTORowMapper;
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit) {
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, customerDTORowMapper, afterId, limit);
+    }
+
+    @Override
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit, Set<CustomerField> fields) {
+        // id is always read because the next cursor is built from it
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        fields.stream()
+                .map(CustomerField::column)
+                .filter(Objects::nonNull)
+                .forEach(columns::add);
+
+        // column names come from the CustomerField whitelist, never from the request
+        var sql = """
+                SELECT %s
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """.formatted(String.join(", ", columns));
+
+        return jdbcTemplate.query(sql, customerDTORowMapper.forColumns(columns), afterId, limit);
     }
 
     @Override
-    public List<Customer> selectAllCustomers() {
+    public Stream<CustomerDTO> streamAllCustomers() {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, age, gender, profile_image_id
                 FROM customer
-                LIMIT 1000
+                ORDER BY id
                 """;
 
-        return jdbcTemplate.query(sql, customerRowMapper);
+        // PostgreSQL only honours the fetch size (server-side cursor) inside a transaction;
+        // callers must consume and close the stream within one
+        return jdbcTemplate.queryForStream(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql);
+                    statement.setFetchSize(STREAM_FETCH_SIZE);
+                    return statement;
+                },
+                customerDTORowMapper);
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String term, int limit) {
+        // each branch walks its GiST trigram index in distance order and stops
+        // after a bounded number of matches; only that union is ranked
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM (
+                    (SELECT id, name, email, age, gender, profile_image_id
+                     FROM customer
+                     WHERE name ILIKE ? OR name % ?
+                     ORDER BY name <-> ?
+                     LIMIT ?)
+                    UNION
+                    (SELECT id, name, email, age, gender, profile_image_id
+                     FROM customer
+                     WHERE email ILIKE ?
+                     ORDER BY email <-> ?
+                     LIMIT ?)
+                ) candidates
+                ORDER BY (name ILIKE ? OR email ILIKE ?) DESC,
+                         greatest(similarity(name, ?), similarity(email, ?)) DESC,
+                         id
+                LIMIT ?
+                """;
+        String contains = CustomerSearch.containsPattern(term);
+        String prefix = CustomerSearch.prefixPattern(term);
+        int candidates = CustomerSearch.candidateLimit(limit);
+        return jdbcTemplate.query(sql, customerDTORowMapper,
+                contains, term, term, candidates,
+                contains, term, candidates,
+                prefix, prefix,
+                term, term,
+                limit);
     }
 
     @Override
     public Optional<Customer> selectCustomerById(Integer id) {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, password, age, gender, profile_image_id, version
                 FROM customer
                 WHERE id = ?
                 """;
@@ -42,21 +141,94 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
+    public Optional<Integer> selectCustomerVersion(Integer id) {
+        var sql = """
+                SELECT version
+                FROM customer
+                WHERE id = ?
+                """;
+        return jdbcTemplate.queryForList(sql, Integer.class, id)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // one array parameter instead of an IN list keeps a single cached plan
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id, version
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+        return jdbcTemplate.query(sql, ps -> ps.setArray(
+                1, ps.getConnection().createArrayOf("integer", ids.toArray())
+        ), customerRowMapper);
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        // one statement against customer_email_unique: no row comes back
+        // when the email is already taken, even under concurrent inserts
         var sql = """
                 INSERT INTO customer(name, email, password, age, gender)
                 VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
                 """;
-        int result = jdbcTemplate.update(
+        return jdbcTemplate.queryForList(
                 sql,
+                Integer.class,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getPassword(),
                 customer.getAge(),
                 customer.getGender().name()
-        );
+        ).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public List<Optional<Integer>> insertCustomers(List<Customer> customers) {
+        // all chunks commit together: a failing chunk leaves no partial batch behind
+        List<Optional<Integer>> results = new ArrayList<>(customers.size());
+        for (int from = 0; from < customers.size(); from += INSERT_CHUNK_SIZE) {
+            List<Customer> chunk = customers.subList(
+                    from, Math.min(from + INSERT_CHUNK_SIZE, customers.size()));
+            results.addAll(insertChunk(chunk));
+        }
+        return results;
+    }
+
+    private List<Optional<Integer>> insertChunk(List<Customer> chunk) {
+        // rows are inserted in VALUES order, so when an email repeats inside
+        // the chunk the first occurrence wins and the rest are skipped
+        var sql = """
+                INSERT INTO customer(name, email, password, age, gender)
+                VALUES %s
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, email
+                """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?)")));
+        List<Object> args = new ArrayList<>(chunk.size() * 5);
+        for (Customer customer : chunk) {
+            args.add(customer.getName());
+            args.add(customer.getEmail());
+            args.add(customer.getPassword());
+            args.add(customer.getAge());
+            args.add(customer.getGender().name());
+        }
 
-        System.out.println("insertCustomer result " + result);
+        Map<String, Integer> idsByEmail = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            idsByEmail.put(rs.getString("email"), rs.getInt("id"));
+        }, args.toArray());
+
+        // remove() hands each id to the first row with that email only
+        return chunk.stream()
+                .map(customer -> Optional.ofNullable(idsByEmail.remove(customer.getEmail())))
+                .toList();
     }
 
     @Override
@@ -94,38 +266,63 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
 
     @Override
     public void updateCustomer(Customer update) {
-        if (update.getName() != null) {
-            String sql = "UPDATE customer SET name = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    update.getName(),
-                    update.getId()
-            );
-            System.out.println("update customer name result = " + result);
+        patchCustomer(update.getId(), new CustomerUpdateRequest(
+                update.getName(),
+                update.getEmail(),
+                update.getAge()));
+    }
+
+    @Override
+    public Optional<Customer> patchCustomer(Integer customerId,
+                                            CustomerUpdateRequest patch,
+                                            Integer expectedVersion) {
+        // column names come from this fixed mask, only values are bound
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (patch.name() != null) {
+            changes.put("name", patch.name());
+        }
+        if (patch.email() != null) {
+            changes.put("email", patch.email());
         }
-        if (update.getAge() != null) {
-            String sql = "UPDATE customer SET age = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    update.getAge(),
-                    update.getId()
-            );
-            System.out.println("update customer age result = " + result);
+        if (patch.age() != null) {
+            changes.put("age", patch.age());
         }
-        if (update.getEmail() != null) {
-            String sql = "UPDATE customer SET email = ? WHERE id = ?";
-            int result = jdbcTemplate.update(
-                    sql,
-                    update.getEmail(),
-                    update.getId());
-            System.out.println("update customer email result = " + result);
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("patch has no fields to update");
         }
+
+        // the IS DISTINCT FROM guard turns a no-op patch into zero rows
+        // instead of a write, so the caller can tell it apart from success
+        // the version guard makes If-Match a compare-and-set in the same statement
+        var sql = """
+                UPDATE customer
+                SET %s
+                WHERE id = ?
+                AND (?::int IS NULL OR version = ?)
+                AND (%s)
+                RETURNING id, name, email, password, age, gender, profile_image_id, version
+                """.formatted(
+                changes.keySet().stream()
+                        .map(column -> column + " = ?")
+                        .collect(Collectors.joining(", ")),
+                changes.keySet().stream()
+                        .map(column -> column + " IS DISTINCT FROM ?")
+                        .collect(Collectors.joining(" OR ")));
+
+        List<Object> args = new ArrayList<>(changes.values());
+        args.add(customerId);
+        args.add(expectedVersion);
+        args.add(expectedVersion);
+        args.addAll(changes.values());
+        return jdbcTemplate.query(sql, customerRowMapper, args.toArray())
+                .stream()
+                .findFirst();
     }
 
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, password, age, gender, profile_image_id, version
                 FROM customer
                 WHERE email = ?
                 """;
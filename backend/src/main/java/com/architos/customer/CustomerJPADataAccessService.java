@@ -1,15 +1,20 @@
 package com.architos.customer;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao {
 
+    private static final CustomerDTOMapper CUSTOMER_DTO_MAPPER = new CustomerDTOMapper();
+
     private final CustomerRepository customerRepository;
 
     public CustomerJPADataAccessService(CustomerRepository customerRepository) {
@@ -17,9 +22,29 @@ public class CustomerJPADataAccessService implements CustomerDao {
     }
 
     @Override
-    public List<Customer> selectAllCustomers() {
-        Page<Customer> page = customerRepository.findAll(Pageable.ofSize(1000));
-        return page.getContent();
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit) {
+        // the query already orders by id; the page only contributes the limit
+        return customerRepository.findDTOsByIdGreaterThan(
+                afterId,
+                PageRequest.of(0, limit));
+    }
+
+    @Override
+    public Stream<CustomerDTO> streamAllCustomers() {
+        return customerRepository.streamAllDTOs();
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String term, int limit) {
+        return customerRepository.search(
+                        term,
+                        CustomerSearch.containsPattern(term),
+                        CustomerSearch.prefixPattern(term),
+                        CustomerSearch.candidateLimit(limit),
+                        limit)
+                .stream()
+                .map(CUSTOMER_DTO_MAPPER)
+                .toList();
     }
 
     @Override
@@ -28,8 +53,33 @@ public class CustomerJPADataAccessService implements CustomerDao {
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public Optional<Integer> selectCustomerVersion(Integer id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Integer> ids) {
+        return customerRepository.findAllById(ids);
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        try {
+            return Optional.of(customerRepository.saveAndFlush(customer).getId());
+        } catch (DataIntegrityViolationException e) {
+            if (CustomerEmailConstraint.isViolatedBy(e)) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Optional<Integer>> insertCustomers(List<Customer> customers) {
+        // one flush per customer so a duplicate only rejects its own row
+        return customers.stream()
+                .map(this::insertCustomer)
+                .toList();
     }
 
     @Override
@@ -52,6 +102,35 @@ public class CustomerJPADataAccessService implements CustomerDao {
         customerRepository.save(update);
     }
 
+    @Override
+    @Transactional
+    public Optional<Customer> patchCustomer(Integer customerId,
+                                            CustomerUpdateRequest patch,
+                                            Integer expectedVersion) {
+        // the row lock keeps the version check and the write together
+        return customerRepository.findForUpdateById(customerId)
+                .filter(customer -> expectedVersion == null || expectedVersion == customer.getVersion())
+                .filter(customer -> applyPatch(customer, patch))
+                .map(customerRepository::saveAndFlush);
+    }
+
+    private static boolean applyPatch(Customer customer, CustomerUpdateRequest patch) {
+        boolean changed = false;
+        if (patch.name() != null && !patch.name().equals(customer.getName())) {
+            customer.setName(patch.name());
+            changed = true;
+        }
+        if (patch.email() != null && !patch.email().equals(customer.getEmail())) {
+            customer.setEmail(patch.email());
+            changed = true;
+        }
+        if (patch.age() != null && !patch.age().equals(customer.getAge())) {
+            customer.setAge(patch.age());
+            changed = true;
+        }
+        return changed;
+    }
+
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
         return customerRepository.findCustomerByEmail(email);
@@ -3,14 +3,22 @@ package com.architos.customer;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Repository("list")
 public class CustomerListDataAccessService implements CustomerDao {
 
+    private static final CustomerDTOMapper CUSTOMER_DTO_MAPPER = new CustomerDTOMapper();
+
     // db
     private static final List<Customer> customers;
+    private static final AtomicInteger nextId = new AtomicInteger(2);
 
     static {
         customers = new ArrayList<>();
@@ -35,8 +43,32 @@ public class CustomerListDataAccessService implements CustomerDao {
     }
 
     @Override
-    public List<Customer> selectAllCustomers() {
-        return customers;
+    public List<CustomerDTO> selectCustomersAfter(int afterId, int limit) {
+        return customers.stream()
+                .filter(c -> c.getId() > afterId)
+                .sorted(Comparator.comparing(Customer::getId))
+                .limit(limit)
+                .map(CUSTOMER_DTO_MAPPER)
+                .toList();
+    }
+
+    @Override
+    public Stream<CustomerDTO> streamAllCustomers() {
+        return customers.stream()
+                .sorted(Comparator.comparing(Customer::getId))
+                .map(CUSTOMER_DTO_MAPPER);
+    }
+
+    @Override
+    public List<CustomerDTO> searchCustomers(String term, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        return customers.stream()
+                .filter(c -> c.getName().toLowerCase(Locale.ROOT).contains(needle)
+                        || c.getEmail().toLowerCase(Locale.ROOT).contains(needle))
+                .sorted(Comparator.comparing(Customer::getId))
+                .limit(limit)
+                .map(CUSTOMER_DTO_MAPPER)
+                .toList();
     }
 
     @Override
@@ -47,8 +79,35 @@ public class CustomerListDataAccessService implements CustomerDao {
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customers.add(customer);
+    public Optional<Integer> selectCustomerVersion(Integer id) {
+        return selectCustomerById(id).map(Customer::getVersion);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Integer> ids) {
+        return customers.stream()
+                .filter(c -> ids.contains(c.getId()))
+                .toList();
+    }
+
+    @Override
+    public Optional<Integer> insertCustomer(Customer customer) {
+        // the check and the add stand in for customer_email_unique
+        synchronized (customers) {
+            if (existsCustomerWithEmail(customer.getEmail())) {
+                return Optional.empty();
+            }
+            customer.setId(nextId.incrementAndGet());
+            customers.add(customer);
+            return Optional.of(customer.getId());
+        }
+    }
+
+    @Override
+    public List<Optional<Integer>> insertCustomers(List<Customer> customers) {
+        return customers.stream()
+                .map(this::insertCustomer)
+                .toList();
     }
 
     @Override
@@ -76,6 +135,33 @@ public class CustomerListDataAccessService implements CustomerDao {
         customers.add(customer);
     }
 
+    @Override
+    public Optional<Customer> patchCustomer(Integer customerId,
+                                            CustomerUpdateRequest patch,
+                                            Integer expectedVersion) {
+        return selectCustomerById(customerId)
+                .filter(customer -> expectedVersion == null || expectedVersion == customer.getVersion())
+                .filter(customer -> {
+            boolean changed = false;
+            if (patch.name() != null && !patch.name().equals(customer.getName())) {
+                customer.setName(patch.name());
+                changed = true;
+            }
+            if (patch.email() != null && !patch.email().equals(customer.getEmail())) {
+                customer.setEmail(patch.email());
+                changed = true;
+            }
+            if (patch.age() != null && !patch.age().equals(customer.getAge())) {
+                customer.setAge(patch.age());
+                changed = true;
+            }
+            if (changed) {
+                customer.setVersion(customer.getVersion() + 1);
+            }
+            return changed;
+        });
+    }
+
     @Override
     public Optional<Customer> selectUserByEmail(String email) {
         return customers.stream()
@@ -1,10 +1,20 @@
 package com.architos.customer;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CustomerRepository
         extends JpaRepository<Customer, Integer> {
@@ -12,6 +22,53 @@ public interface CustomerRepository
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Integer id);
     Optional<Customer> findCustomerByEmail(String email);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = ?1")
+    Optional<Customer> findForUpdateById(Integer id);
+    @Query("SELECT c.version FROM Customer c WHERE c.id = ?1")
+    Optional<Integer> findVersionById(Integer id);
+    @Query("""
+            SELECT new com.architos.customer.CustomerDTO(
+                c.id, c.name, c.email, c.gender, c.age, c.profileImageId)
+            FROM Customer c
+            WHERE c.id > ?1
+            ORDER BY c.id
+            """)
+    List<CustomerDTO> findDTOsByIdGreaterThan(Integer id, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.architos.customer.CustomerDTO(
+                c.id, c.name, c.email, c.gender, c.age, c.profileImageId)
+            FROM Customer c
+            ORDER BY c.id
+            """)
+    Stream<CustomerDTO> streamAllDTOs();
+    // native: ILIKE, %, <-> and similarity() come from pg_trgm
+    @Query(value = """
+            SELECT *
+            FROM (
+                (SELECT *
+                 FROM customer
+                 WHERE name ILIKE :contains OR name % :term
+                 ORDER BY name <-> :term
+                 LIMIT :candidates)
+                UNION
+                (SELECT *
+                 FROM customer
+                 WHERE email ILIKE :contains
+                 ORDER BY email <-> :term
+                 LIMIT :candidates)
+            ) candidates
+            ORDER BY (name ILIKE :prefix OR email ILIKE :prefix) DESC,
+                     greatest(similarity(name, :term), similarity(email, :term)) DESC,
+                     id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Customer> search(@Param("term") String term,
+                          @Param("contains") String contains,
+                          @Param("prefix") String prefix,
+                          @Param("candidates") int candidates,
+                          @Param("limit") int limit);
     @Modifying
     @Query("UPDATE Customer c SET c.profileImageId = ?1 WHERE c.id = ?2")
     int updateProfileImageId(String profileImageId, Integer customerId);
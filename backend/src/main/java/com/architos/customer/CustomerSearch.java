@@ -0,0 +1,36 @@
+package com.architos.customer;
+
+/**
+ * LIKE patterns for customer search. The user's term is escaped so that
+ * {@code %} and {@code _} are matched literally (PostgreSQL's default LIKE
+ * escape character is the backslash).
+ * <p>
+ * Searches rank a bounded candidate set: the nearest names and the nearest
+ * emails by trigram distance, each read in index order, a few times the
+ * requested limit.
+ */
+final class CustomerSearch {
+
+    static final int CANDIDATE_FACTOR = 4;
+
+    private CustomerSearch() {
+    }
+
+    static int candidateLimit(int limit) {
+        return limit * CANDIDATE_FACTOR;
+    }
+
+    static String containsPattern(String term) {
+        return "%" + escape(term) + "%";
+    }
+
+    static String prefixPattern(String term) {
+        return escape(term) + "%";
+    }
+
+    private static String escape(String term) {
+        return term.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
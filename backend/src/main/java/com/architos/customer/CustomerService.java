@@ -3,24 +3,40 @@ package com.architos.customer;
 import com.architos.exception.DuplicateResourceException;
 import com.architos.exception.FileSizeExceededException;
 import com.architos.exception.InvalidFileTypeException;
+import com.architos.exception.PreconditionFailedException;
 import com.architos.exception.RequestValidationException;
 import com.architos.exception.ResourceNotFoundException;
 import com.architos.exception.S3ServiceException;
 import com.architos.file.FileValidationService;
 import com.architos.metrics.FileUploadMetricsService;
+import com.architos.s3.ByteRange;
+import com.architos.s3.PresignedUpload;
+import com.architos.s3.PresignedUrl;
 import com.architos.s3.S3Buckets;
 import com.architos.s3.S3Service;
+import com.architos.s3.S3UrlSigner;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -30,53 +46,132 @@ public class CustomerService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MIN_SEARCH_LENGTH = 3;
+    static final int DEFAULT_SEARCH_SIZE = 20;
+    static final int MAX_SEARCH_SIZE = 100;
+
     private final CustomerDao customerDao;
     private final Function<Customer, CustomerDTO> customerDTOMapper;
     private final PasswordEncoder passwordEncoder;
     private final S3Service s3Service;
     private final S3Buckets s3Buckets;
+    private final S3UrlSigner s3UrlSigner;
+    private final ProfileImageConfig profileImageConfig;
     private final FileValidationService fileValidationService;
     private final FileUploadMetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao,
+    public CustomerService(@Qualifier("cached") CustomerDao customerDao,
             CustomerDTOMapper customerDTOMapper,
             PasswordEncoder passwordEncoder,
             S3Service s3Service,
             S3Buckets s3Buckets,
+            S3UrlSigner s3UrlSigner,
+            ProfileImageConfig profileImageConfig,
             FileValidationService fileValidationService,
-            FileUploadMetricsService metricsService) {
+            FileUploadMetricsService metricsService,
+            ApplicationEventPublisher eventPublisher) {
         this.customerDao = customerDao;
         this.customerDTOMapper = customerDTOMapper;
         this.passwordEncoder = passwordEncoder;
         this.s3Service = s3Service;
         this.s3Buckets = s3Buckets;
+        this.s3UrlSigner = s3UrlSigner;
+        this.profileImageConfig = profileImageConfig;
         this.fileValidationService = fileValidationService;
         this.metricsService = metricsService;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<CustomerDTO> getAllCustomers() {
-        return customerDao.selectAllCustomers()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+    public CustomerPage getCustomers(String after, Integer limit) {
+        return getCustomers(after, limit, CustomerField.parse(null));
+    }
+
+    public CustomerPage getCustomers(String after, Integer limit, Set<CustomerField> fields) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+        int afterId = after == null || after.isBlank() ? 0 : CustomerCursor.decode(after);
+
+        // fetch one extra row so we only hand out a cursor when another page exists
+        List<CustomerDTO> customers = CustomerField.isAll(fields)
+                ? customerDao.selectCustomersAfter(afterId, pageSize + 1)
+                : customerDao.selectCustomersAfter(afterId, pageSize + 1, fields);
+        boolean hasMore = customers.size() > pageSize;
+
+        List<CustomerDTO> page = hasMore ? customers.subList(0, pageSize) : customers;
+
+        String nextCursor = hasMore
+                ? CustomerCursor.encode(page.get(page.size() - 1).id())
+                : null;
+        return new CustomerPage(page, nextCursor);
+    }
+
+    public List<CustomerDTO> searchCustomers(String query, Integer limit) {
+        String term = query == null ? "" : query.strip();
+        // shorter terms have no trigram to look up and would scan the whole index
+        if (term.length() < MIN_SEARCH_LENGTH) {
+            throw new RequestValidationException(
+                    "search query must have at least %s characters".formatted(MIN_SEARCH_LENGTH));
+        }
+        int resultSize = limit == null ? DEFAULT_SEARCH_SIZE : limit;
+        if (resultSize < 1 || resultSize > MAX_SEARCH_SIZE) {
+            throw new RequestValidationException(
+                    "limit must be between 1 and %s".formatted(MAX_SEARCH_SIZE));
+        }
+        return customerDao.searchCustomers(term, resultSize);
     }
 
     public CustomerDTO getCustomer(Integer id) {
+        return getVersionedCustomer(id).customer();
+    }
+
+    public VersionedCustomer getVersionedCustomer(Integer id) {
+        // concurrent misses for the same id already share one load in
+        // CachingCustomerDao (Caffeine's get(key, loader))
         return customerDao.selectCustomerById(id)
-                .map(customerDTOMapper)
+                .map(customer -> new VersionedCustomer(
+                        customerDTOMapper.apply(customer), customer.getVersion()))
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "customer with id [%s] not found".formatted(id)));
     }
 
-    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-        // check if email exists
-        String email = customerRegistrationRequest.email();
-        if (customerDao.existsCustomerWithEmail(email)) {
-            throw new DuplicateResourceException(
-                    "email already taken");
+    public int getCustomerVersion(Integer id) {
+        return customerDao.selectCustomerVersion(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "customer with id [%s] not found".formatted(id)));
+    }
+
+    public CustomerLookup getCustomersByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "ids must contain between 1 and %s entries".formatted(MAX_PAGE_SIZE));
         }
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
 
-        // add
+        Map<Integer, Customer> found = customerDao.selectCustomersByIds(requested)
+                .stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        List<CustomerDTO> customers = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : requested) {
+            Customer customer = found.get(id);
+            if (customer != null) {
+                customers.add(customerDTOMapper.apply(customer));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new CustomerLookup(customers, missingIds);
+    }
+
+    public Integer addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
         Customer customer = new Customer(
                 customerRegistrationRequest.name(),
                 customerRegistrationRequest.email(),
@@ -84,13 +179,23 @@ public class CustomerService {
                 customerRegistrationRequest.age(),
                 customerRegistrationRequest.gender());
 
-        customerDao.insertCustomer(customer);
+        // the insert itself enforces the unique email, no separate check
+        Integer customerId = customerDao.insertCustomer(customer)
+                .orElseThrow(() -> new DuplicateResourceException(
+                        "email already taken"));
+        publishChange(CustomerChangedEvent.Type.CREATED, customerId);
+        return customerId;
     }
 
     public void deleteCustomerById(Integer customerId) {
         checkIfCustomerExists(customerId);
 
         customerDao.deleteCustomerById(customerId);
+        publishChange(CustomerChangedEvent.Type.DELETED, customerId);
+    }
+
+    private void publishChange(CustomerChangedEvent.Type type, Integer customerId) {
+        eventPublisher.publishEvent(new CustomerChangedEvent(type, customerId));
     }
 
     private void checkIfCustomerExists(Integer customerId) {
@@ -100,40 +205,52 @@ public class CustomerService {
         }
     }
 
-    public void updateCustomer(Integer customerId,
+    public CustomerDTO updateCustomer(Integer customerId,
             CustomerUpdateRequest updateRequest) {
-        // TODO: for JPA use .getReferenceById(customerId) as it does does not bring
-        // object into memory and instead a reference
-        Customer customer = customerDao.selectCustomerById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "customer with id [%s] not found".formatted(customerId)));
-
-        boolean changes = false;
-
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())) {
-            customer.setName(updateRequest.name());
-            changes = true;
-        }
+        return updateCustomer(customerId, updateRequest, null).customer();
+    }
 
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())) {
-            customer.setAge(updateRequest.age());
-            changes = true;
+    /**
+     * Updates the customer only while it is still at {@code expectedVersion}
+     * (any version when {@code null}).
+     */
+    public VersionedCustomer updateCustomer(Integer customerId,
+            CustomerUpdateRequest updateRequest,
+            Integer expectedVersion) {
+        if (updateRequest.name() == null
+                && updateRequest.email() == null
+                && updateRequest.age() == null) {
+            throw new RequestValidationException("no data changes found");
         }
 
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())) {
-            if (customerDao.existsCustomerWithEmail(updateRequest.email())) {
-                throw new DuplicateResourceException(
-                        "email already taken");
+        // one UPDATE ... RETURNING; email uniqueness is left to customer_email_unique
+        Optional<Customer> updated;
+        try {
+            updated = customerDao.patchCustomer(customerId, updateRequest, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            if (CustomerEmailConstraint.isViolatedBy(e)) {
+                throw new DuplicateResourceException("email already taken");
             }
-            customer.setEmail(updateRequest.email());
-            changes = true;
-        }
-
-        if (!changes) {
-            throw new RequestValidationException("no data changes found");
+            throw e;
         }
 
-        customerDao.updateCustomer(customer);
+        VersionedCustomer result = updated
+                .map(customer -> new VersionedCustomer(
+                        customerDTOMapper.apply(customer), customer.getVersion()))
+                .orElseThrow(() -> {
+                    // no row came back: there is no such customer, it moved
+                    // past the expected version, or the patch matched what is
+                    // stored already
+                    int currentVersion = getCustomerVersion(customerId);
+                    if (expectedVersion != null && expectedVersion != currentVersion) {
+                        return new PreconditionFailedException(
+                                "customer with id [%s] was modified, current version is %s"
+                                        .formatted(customerId, currentVersion));
+                    }
+                    return new RequestValidationException("no data changes found");
+                });
+        publishChange(CustomerChangedEvent.Type.UPDATED, customerId);
+        return result;
     }
 
     public void uploadCustomerProfileImage(Integer customerId, MultipartFile file) {
@@ -181,15 +298,19 @@ public class CustomerService {
             String s3Key = "profile-images/%s/%s".formatted(customerId, profileImageId);
             MDC.put("s3_key", s3Key);
 
-            try {
+            // streamed from the multipart part (spooled to disk by the
+            // container) so an upload never sits on the heap as a whole
+            try (InputStream inputStream = file.getInputStream()) {
                 logger.debug("Uploading file to S3 - bucket: {}, key: {}", s3Buckets.getCustomer(), s3Key);
                 s3Service.putObject(
                         s3Buckets.getCustomer(),
                         s3Key,
-                        file.getBytes());
+                        inputStream,
+                        file.getSize(),
+                        file.getContentType());
                 logger.info("Successfully uploaded profile image to S3 for customer ID: {}", customerId);
             } catch (IOException e) {
-                logger.error("Failed to read file bytes for customer ID: {}, io_error: {}", customerId, e.getMessage(),
+                logger.error("Failed to read file stream for customer ID: {}, io_error: {}", customerId, e.getMessage(),
                         e);
                 metricsService.recordUploadFailure("io_error: " + e.getMessage());
                 throw new S3ServiceException("Failed to process uploaded file: " + e.getMessage(), e);
@@ -208,6 +329,7 @@ public class CustomerService {
             try {
                 customerDao.updateCustomerProfileImageId(profileImageId, customerId);
                 logger.info("Successfully updated customer profile image ID for customer ID: {}", customerId);
+                publishChange(CustomerChangedEvent.Type.PROFILE_IMAGE_UPDATED, customerId);
                 metricsService.recordUploadSuccess(String.valueOf(customerId), file.getOriginalFilename(),
                         file.getSize(), file.getContentType());
             } catch (Exception e) {
@@ -240,49 +362,158 @@ public class CustomerService {
         }
     }
 
-    public byte[] getCustomerProfileImage(Integer customerId) {
-        // Set up structured logging context
-        MDC.put("operation", "profile_image_retrieval");
+    /**
+     * First step of a direct upload: validates what the client declares and
+     * returns a presigned PUT for exactly that type and size under a fresh
+     * key, so the image bytes never pass through this server.
+     */
+    public ProfileImageUpload initiateProfileImageUpload(Integer customerId, ProfileImageUploadRequest request) {
+        String profileImageId = UUID.randomUUID().toString();
+
+        MDC.put("operation", "profile_image_upload_init");
         MDC.put("customer_id", String.valueOf(customerId));
+        MDC.put("profile_image_id", profileImageId);
 
         try {
-            logger.debug("Retrieving profile image for customer ID: {}", customerId);
-
-            var customer = customerDao.selectCustomerById(customerId)
-                    .map(customerDTOMapper)
-                    .orElseThrow(() -> {
-                        logger.warn("Customer not found when retrieving profile image, customer ID: {}", customerId);
-                        return new ResourceNotFoundException(
-                                "customer with id [%s] not found".formatted(customerId));
-                    });
-
-            // Check if profileImageId is Empty or Null
-            if (customer.profileImageId() == null || customer.profileImageId().isEmpty()) {
-                logger.warn("No profile image found for customer ID: {}", customerId);
-                throw new ResourceNotFoundException(
-                        "customer with id [%s] profile image not found".formatted(customerId));
+            checkIfCustomerExists(customerId);
+            if (request.contentLength() == null) {
+                throw new RequestValidationException("contentLength is required");
             }
+            validateDirectUpload(customerId, request.contentType(), request.contentLength());
 
-            String s3Key = "profile-images/%s/%s".formatted(customerId, customer.profileImageId());
-            MDC.put("s3_key", s3Key);
-            MDC.put("profile_image_id", customer.profileImageId());
+            String s3Key = "profile-images/%s/%s".formatted(customerId, profileImageId);
+            PresignedUpload presigned = s3UrlSigner.presignPutObject(
+                    s3Buckets.getCustomer(),
+                    s3Key,
+                    request.contentType(),
+                    request.contentLength(),
+                    profileImageConfig.getUploadUrlTtl());
+            logger.info("Issued presigned profile image upload - customer_id: {}, key: {}, size: {} bytes, type: {}",
+                    customerId, s3Key, request.contentLength(), request.contentType());
+            return new ProfileImageUpload(
+                    profileImageId, presigned.url(), presigned.headers(), presigned.expiresAt());
+        } finally {
+            // Clean up MDC
+            MDC.remove("operation");
+            MDC.remove("customer_id");
+            MDC.remove("profile_image_id");
+        }
+    }
 
-            logger.debug("Retrieving profile image from S3 - bucket: {}, key: {}", s3Buckets.getCustomer(), s3Key);
+    /**
+     * Second step of a direct upload: checks with a HEAD that the object is
+     * in S3 and still passes validation, then points the customer at it.
+     */
+    public void completeProfileImageUpload(Integer customerId, String uploadId) {
+        MDC.put("operation", "profile_image_upload_complete");
+        MDC.put("customer_id", String.valueOf(customerId));
+        MDC.put("profile_image_id", uploadId);
 
+        try {
+            checkIfCustomerExists(customerId);
+            // only ids this service generated, so the key stays under the customer's prefix
+            String profileImageId;
             try {
-                byte[] profileImage = s3Service.getObject(s3Buckets.getCustomer(), s3Key);
-                logger.info("Successfully retrieved profile image for customer ID: {}, size: {} bytes",
-                        customerId, profileImage.length);
-                return profileImage;
-            } catch (S3ServiceException e) {
-                logger.error("Failed to retrieve profile image from S3 for customer ID: {}, s3_error: {}",
-                        customerId, e.getMessage(), e);
-                throw e;
-            } catch (Exception e) {
-                logger.error("Unexpected error retrieving profile image for customer ID: {}, error: {}",
-                        customerId, e.getMessage(), e);
-                throw new S3ServiceException("Unexpected error retrieving profile image: " + e.getMessage(), e);
+                profileImageId = UUID.fromString(uploadId).toString();
+            } catch (IllegalArgumentException e) {
+                throw new RequestValidationException("invalid upload id [%s]".formatted(uploadId));
+            }
+
+            String s3Key = "profile-images/%s/%s".formatted(customerId, profileImageId);
+            HeadObjectResponse object = s3Service.headObject(s3Buckets.getCustomer(), s3Key)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "profile image upload [%s] not found for customer with id [%s]"
+                                    .formatted(uploadId, customerId)));
+            long size = object.contentLength() == null ? 0 : object.contentLength();
+            validateDirectUpload(customerId, object.contentType(), size);
+
+            customerDao.updateCustomerProfileImageId(profileImageId, customerId);
+            logger.info("Completed direct profile image upload - customer_id: {}, key: {}, size: {} bytes",
+                    customerId, s3Key, size);
+            publishChange(CustomerChangedEvent.Type.PROFILE_IMAGE_UPDATED, customerId);
+            metricsService.recordUploadSuccess(String.valueOf(customerId), profileImageId, size,
+                    object.contentType());
+        } finally {
+            // Clean up MDC
+            MDC.remove("operation");
+            MDC.remove("customer_id");
+            MDC.remove("profile_image_id");
+        }
+    }
+
+    private void validateDirectUpload(Integer customerId, String contentType, long size) {
+        try {
+            fileValidationService.validateImage(contentType, size);
+        } catch (InvalidFileTypeException e) {
+            logger.warn("File type validation failed for customer ID: {}, validation_error: {}", customerId,
+                    e.getMessage());
+            metricsService.recordValidationFailure("file_type", e.getMessage());
+            throw e;
+        } catch (FileSizeExceededException e) {
+            logger.warn("File size validation failed for customer ID: {}, validation_error: {}", customerId,
+                    e.getMessage());
+            metricsService.recordValidationFailure("file_size", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the profile image for streaming instead of reading it into
+     * memory.
+     */
+    public ProfileImage openCustomerProfileImage(Integer customerId) {
+        return openCustomerProfileImage(customerId, null);
+    }
+
+    public ProfileImage openCustomerProfileImage(Integer customerId, ByteRange range) {
+        return openCustomerProfileImage(customerId, range, null);
+    }
+
+    /**
+     * Opens only {@code range} of the profile image ({@code null} for all of
+     * it). The range is resolved by S3, so nothing before it is transferred.
+     * When {@code ifRange} no longer names the current image the whole image
+     * is opened instead, so a client never stitches parts of two images.
+     */
+    public ProfileImage openCustomerProfileImage(Integer customerId, ByteRange range, String ifRange) {
+        MDC.put("operation", "profile_image_stream");
+        MDC.put("customer_id", String.valueOf(customerId));
+
+        try {
+            String profileImageId = profileImageId(customerId);
+            if (range != null && !ProfileImage.matchesIfRange(ifRange, profileImageId)) {
+                range = null;
             }
+            ResponseInputStream<GetObjectResponse> object = s3Service.getObjectStream(
+                    s3Buckets.getCustomer(), profileImageKey(customerId, profileImageId), range);
+            GetObjectResponse response = object.response();
+            return new ProfileImage(
+                    object,
+                    response.contentLength() == null ? -1 : response.contentLength(),
+                    response.contentType(),
+                    response.contentRange(),
+                    profileImageId);
+        } finally {
+            // Clean up MDC
+            MDC.remove("operation");
+            MDC.remove("customer_id");
+            MDC.remove("s3_key");
+            MDC.remove("profile_image_id");
+        }
+    }
+
+    /**
+     * A short-lived presigned GET URL for the profile image, so the bytes go
+     * from S3 to the client directly. URLs are reused while they have at
+     * least half of {@code customer.profile-image.url-ttl} left.
+     */
+    public PresignedUrl getCustomerProfileImageUrl(Integer customerId) {
+        MDC.put("operation", "profile_image_url");
+        MDC.put("customer_id", String.valueOf(customerId));
+
+        try {
+            String s3Key = profileImageKey(customerId);
+            return s3UrlSigner.presignGetObject(s3Buckets.getCustomer(), s3Key, profileImageConfig.getUrlTtl());
         } finally {
             // Clean up MDC
             MDC.remove("operation");
@@ -291,4 +522,34 @@ public class CustomerService {
             MDC.remove("profile_image_id");
         }
     }
+
+    private String profileImageKey(Integer customerId) {
+        return profileImageKey(customerId, profileImageId(customerId));
+    }
+
+    private static String profileImageKey(Integer customerId, String profileImageId) {
+        String s3Key = "profile-images/%s/%s".formatted(customerId, profileImageId);
+        MDC.put("s3_key", s3Key);
+        return s3Key;
+    }
+
+    private String profileImageId(Integer customerId) {
+        CustomerDTO customer;
+        try {
+            customer = getCustomer(customerId);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Customer not found when retrieving profile image, customer ID: {}", customerId);
+            throw e;
+        }
+
+        // Check if profileImageId is Empty or Null
+        if (customer.profileImageId() == null || customer.profileImageId().isEmpty()) {
+            logger.warn("No profile image found for customer ID: {}", customerId);
+            throw new ResourceNotFoundException(
+                    "customer with id [%s] profile image not found".formatted(customerId));
+        }
+
+        MDC.put("profile_image_id", customer.profileImageId());
+        return customer.profileImageId();
+    }
 }
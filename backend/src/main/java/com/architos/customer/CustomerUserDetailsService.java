@@ -1,25 +1,98 @@
 package com.architos.customer;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Loads customers for authentication. Hits are served from a small
+ * TTL-bounded cache keyed by email; every {@link CustomerInvalidationEvent},
+ * local or replayed from another node, evicts the affected entries. An
+ * id-to-email index finds the entry of a customer whose email has changed
+ * without scanning the cache.
+ */
 @Service
 public class CustomerUserDetailsService implements UserDetailsService {
 
     private final CustomerDao customerDao;
+    private final Cache<String, Customer> userDetails;
+    private final ConcurrentMap<Integer, String> usernamesById = new ConcurrentHashMap<>();
+    private final Timer loadTimer;
 
-    public CustomerUserDetailsService(@Qualifier("jpa") CustomerDao customerDao) {
+    public CustomerUserDetailsService(@Qualifier("jpa") CustomerDao customerDao,
+                                      CustomerCacheConfig cacheConfig,
+                                      MeterRegistry meterRegistry) {
         this.customerDao = customerDao;
+        this.userDetails = Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaxSize())
+                .expireAfterWrite(cacheConfig.getUserDetailsTtl())
+                .recordStats()
+                // runs on the caller so the index never outlives its entry;
+                // the two-argument remove keeps a newer mapping of the id
+                .executor(Runnable::run)
+                .<String, Customer>removalListener((email, customer, cause) -> {
+                    if (customer != null) {
+                        usernamesById.remove(customer.getId(), email);
+                    }
+                })
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetails, "user_details");
+        Gauge.builder("user_details_cache_hit_ratio", userDetails, cache -> cache.stats().hitRate())
+                .description("Share of loadUserByUsername calls served from the cache")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("user_details_load_duration")
+                .description("Time spent loading a customer from the database on a cache miss")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username)
             throws UsernameNotFoundException {
-        return customerDao.selectUserByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException(
-                        "Username " + username + " not found"));
+        // misses are not cached, so a customer who registers right after a
+        // failed lookup can log in straight away
+        Customer customer = userDetails.get(username, this::load);
+        if (customer == null) {
+            throw new UsernameNotFoundException("Username " + username + " not found");
+        }
+        // Customer is mutable, so callers never get the cached instance
+        return CachingCustomerDao.copyOf(customer);
+    }
+
+    private Customer load(String email) {
+        Customer customer = loadTimer.record(() -> customerDao.selectUserByEmail(email).orElse(null));
+        if (customer != null) {
+            usernamesById.put(customer.getId(), email);
+        }
+        return customer;
+    }
+
+    @EventListener
+    public void onCustomerInvalidation(CustomerInvalidationEvent event) {
+        if (event.flushAll()) {
+            userDetails.invalidateAll();
+            return;
+        }
+        userDetails.invalidateAll(event.emails());
+        // an update may have changed the email, so look for the old key too
+        for (Integer customerId : event.customerIds()) {
+            String username = usernamesById.remove(customerId);
+            if (username != null) {
+                userDetails.invalidate(username);
+            }
+        }
     }
 }
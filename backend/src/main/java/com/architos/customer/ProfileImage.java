@@ -0,0 +1,49 @@
+package com.architos.customer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An open profile image stream with the metadata needed for the response
+ * headers. Whoever writes the content closes it. {@code contentRange} is
+ * set when only part of the image was requested, and {@code contentLength}
+ * is then the length of that part.
+ * <p>
+ * Every upload gets a fresh {@code id}, so it doubles as a strong ETag:
+ * the same id always names the same bytes.
+ */
+public record ProfileImage(
+        InputStream content,
+        long contentLength,
+        String contentType,
+        String contentRange,
+        String id
+) implements Closeable {
+
+    public boolean isPartial() {
+        return contentRange != null;
+    }
+
+    public String eTag() {
+        return eTagOf(id);
+    }
+
+    static String eTagOf(String id) {
+        return "\"" + id + "\"";
+    }
+
+    /**
+     * {@code If-Range} uses strong comparison (RFC 9110 13.1.5): only the
+     * current tag, without {@code W/}, keeps the range. A date never
+     * matches, since no Last-Modified is sent.
+     */
+    static boolean matchesIfRange(String ifRange, String id) {
+        return ifRange == null || ifRange.trim().equals(eTagOf(id));
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
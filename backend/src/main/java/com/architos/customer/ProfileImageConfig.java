@@ -0,0 +1,50 @@
+package com.architos.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "customer.profile-image")
+public class ProfileImageConfig {
+
+    /**
+     * How GET /{id}/profile-image answers: PROXY streams the bytes through
+     * this server, REDIRECT answers 302 to a presigned S3 URL and JSON
+     * returns that URL in the body.
+     */
+    public enum Delivery {
+        PROXY, REDIRECT, JSON
+    }
+
+    private Delivery delivery = Delivery.PROXY;
+    // lifetime of a presigned download URL
+    private Duration urlTtl = Duration.ofMinutes(10);
+    // lifetime of a presigned upload URL, i.e. how long a client has to start the PUT
+    private Duration uploadUrlTtl = Duration.ofMinutes(5);
+
+    public Delivery getDelivery() {
+        return delivery;
+    }
+
+    public void setDelivery(Delivery delivery) {
+        this.delivery = delivery;
+    }
+
+    public Duration getUrlTtl() {
+        return urlTtl;
+    }
+
+    public void setUrlTtl(Duration urlTtl) {
+        this.urlTtl = urlTtl;
+    }
+
+    public Duration getUploadUrlTtl() {
+        return uploadUrlTtl;
+    }
+
+    public void setUploadUrlTtl(Duration uploadUrlTtl) {
+        this.uploadUrlTtl = uploadUrlTtl;
+    }
+}
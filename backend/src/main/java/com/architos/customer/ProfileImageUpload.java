@@ -0,0 +1,17 @@
+package com.architos.customer;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Where and how to PUT a profile image straight to S3. Once the PUT has
+ * succeeded the client completes the upload with {@code uploadId}.
+ */
+public record ProfileImageUpload(
+        String uploadId,
+        URL url,
+        Map<String, String> headers,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,7 @@
+package com.architos.customer;
+
+public record ProfileImageUploadRequest(
+        String contentType,
+        Long contentLength
+) {
+}
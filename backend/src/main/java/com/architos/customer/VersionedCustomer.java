@@ -0,0 +1,7 @@
+package com.architos.customer;
+
+/**
+ * A customer together with the version its ETag is built from.
+ */
+public record VersionedCustomer(CustomerDTO customer, int version) {
+}
@@ -1,6 +1,7 @@
 package com.architos.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -85,6 +86,46 @@ public class DefaultExceptionHandler {
                 return new ResponseEntity<>(apiError, HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
+        @ExceptionHandler(ServiceUnavailableException.class)
+        public ResponseEntity<ApiError> handleException(ServiceUnavailableException e,
+                        HttpServletRequest request) {
+                ApiError apiError = new ApiError(
+                                request.getRequestURI(),
+                                e.getMessage(),
+                                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                LocalDateTime.now());
+
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(apiError);
+        }
+
+        @ExceptionHandler(PreconditionFailedException.class)
+        public ResponseEntity<ApiError> handleException(PreconditionFailedException e,
+                        HttpServletRequest request) {
+                ApiError apiError = new ApiError(
+                                request.getRequestURI(),
+                                e.getMessage(),
+                                HttpStatus.PRECONDITION_FAILED.value(),
+                                LocalDateTime.now());
+
+                return new ResponseEntity<>(apiError, HttpStatus.PRECONDITION_FAILED);
+        }
+
+        @ExceptionHandler(RangeNotSatisfiableException.class)
+        public ResponseEntity<ApiError> handleException(RangeNotSatisfiableException e,
+                        HttpServletRequest request) {
+                ApiError apiError = new ApiError(
+                                request.getRequestURI(),
+                                e.getMessage(),
+                                HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(),
+                                LocalDateTime.now());
+
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + e.getLength())
+                                .body(apiError);
+        }
+
         @ExceptionHandler(Exception.class)
         public ResponseEntity<ApiError> handleException(Exception e,
                         HttpServletRequest request) {
@@ -0,0 +1,22 @@
+package com.architos.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long length;
+
+    public RangeNotSatisfiableException(String message, long length) {
+        super(message);
+        this.length = length;
+    }
+
+    /**
+     * Size of the whole resource, reported back in {@code Content-Range}.
+     */
+    public long getLength() {
+        return length;
+    }
+}
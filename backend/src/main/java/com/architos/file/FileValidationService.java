@@ -45,8 +45,8 @@ public class FileValidationService {
                 throw new InvalidFileTypeException("File cannot be empty");
             }
 
-            validateFileType(file);
-            validateFileSize(file);
+            validateFileType(file.getContentType());
+            validateFileSize(file.getSize());
 
             logger.info("File validation completed successfully");
         } catch (Exception e) {
@@ -61,6 +61,21 @@ public class FileValidationService {
         }
     }
 
+    /**
+     * Same rules as {@link #validateImageFile(MultipartFile)} for an image
+     * that never passes through this server, e.g. one uploaded straight to
+     * S3, checked by its declared or stored type and size.
+     */
+    public void validateImage(String contentType, long size) {
+        logger.debug("Validating image - size: {} bytes, type: {}", size, contentType);
+        if (size <= 0) {
+            logger.warn("Image validation failed: image is empty");
+            throw new InvalidFileTypeException("File cannot be empty");
+        }
+        validateFileType(contentType);
+        validateFileSize(size);
+    }
+
     public boolean isValidImageType(String contentType) {
         return contentType != null && ALLOWED_IMAGE_TYPES.contains(contentType.toLowerCase());
     }
@@ -70,8 +85,7 @@ public class FileValidationService {
         return size <= maxSizeBytes;
     }
 
-    private void validateFileType(MultipartFile file) {
-        String contentType = file.getContentType();
+    private void validateFileType(String contentType) {
         logger.debug("Validating file type: {}", contentType);
 
         if (!isValidImageType(contentType)) {
@@ -85,8 +99,7 @@ public class FileValidationService {
         logger.debug("File type validation passed: {}", contentType);
     }
 
-    private void validateFileSize(MultipartFile file) {
-        long fileSize = file.getSize();
+    private void validateFileSize(long fileSize) {
         long maxSizeBytes = parseMaxFileSize();
 
         logger.debug("Validating file size: {} bytes, max allowed: {} bytes", fileSize, maxSizeBytes);
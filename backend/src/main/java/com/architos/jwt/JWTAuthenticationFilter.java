@@ -1,31 +1,50 @@
 package com.architos.jwt;
 
 import com.architos.customer.CustomerUserDetailsService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 
 @Component
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
+    static final String TICKET_PARAMETER = "ticket";
+    // the only endpoint that takes a ticket instead of an Authorization header
+    private static final RequestMatcher EVENT_STREAM =
+            new AntPathRequestMatcher("/api/v1/customers/events", "GET");
+
     private final JWTUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final JWTConfig jwtConfig;
+    private final TokenVersionService tokenVersionService;
 
     public JWTAuthenticationFilter(JWTUtil jwtUtil,
-                                   CustomerUserDetailsService userDetailsService) {
+                                   CustomerUserDetailsService userDetailsService,
+                                   JWTConfig jwtConfig,
+                                   TokenVersionService tokenVersionService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.jwtConfig = jwtConfig;
+        this.tokenVersionService = tokenVersionService;
     }
 
     @Override
@@ -35,30 +54,73 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
+        String jwt = null;
+        String expectedPurpose = null;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwt = authHeader.substring(7);
+        } else if (EVENT_STREAM.matches(request)) {
+            jwt = request.getParameter(TICKET_PARAMETER);
+            expectedPurpose = JWTUtil.EVENT_STREAM_PURPOSE;
+        }
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String jwt = authHeader.substring(7);
-        String subject = jwtUtil.getSubject(jwt);
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // leave the request unauthenticated; the entry point answers with 403
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!Objects.equals(token.purpose(), expectedPurpose)) {
+            // a ticket is never a bearer token, and a bearer token never
+            // travels in a URL
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String subject = token.subject();
 
         if (subject != null &&
                 SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities()
-                        );
-                authenticationToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            if (jwtConfig.isStateless() && token.userId() != null) {
+                // the signed claims are trusted as-is; only the revocation
+                // check may touch the database, and it is cached
+                if (!token.isExpired() && tokenVersionService.isCurrent(token)) {
+                    List<SimpleGrantedAuthority> authorities = token.scopes().stream()
+                            .map(SimpleGrantedAuthority::new)
+                            .toList();
+                    authenticate(request, subject, token, authorities);
+                }
+            } else if (token.userId() == null || tokenVersionService.isCurrent(token)) {
+                // tokens issued before the uid claim can't be revoked and
+                // are only checked against the stored user
+                UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
+                if (token.isValidFor(userDetails.getUsername())) {
+                    authenticate(request, userDetails, token, userDetails.getAuthorities());
+                }
             }
         }
         filterChain.doFilter(request, response);
 
     }
+
+    private static void authenticate(HttpServletRequest request,
+                                     Object principal,
+                                     VerifiedToken token,
+                                     Collection<? extends GrantedAuthority> authorities) {
+        // the verified token is kept as the credentials so endpoints can
+        // read its claims (e.g. the customer id) without parsing it again
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(
+                    principal, token, authorities
+                );
+        authenticationToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
 }
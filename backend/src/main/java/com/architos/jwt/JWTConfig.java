@@ -0,0 +1,70 @@
+package com.architos.jwt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "jwt")
+public class JWTConfig {
+
+    /**
+     * Authenticate requests from the verified claims alone instead of loading
+     * the customer on every call. Tokens without a user id still take the
+     * database path.
+     */
+    private boolean stateless = false;
+    private Revocation revocation = new Revocation();
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+
+    public Revocation getRevocation() {
+        return revocation;
+    }
+
+    public void setRevocation(Revocation revocation) {
+        this.revocation = revocation;
+    }
+
+    public static class Revocation {
+
+        /**
+         * Reject stateless tokens whose version is behind the customer's
+         * token_version column.
+         */
+        private boolean enabled = true;
+        private Duration cacheTtl = Duration.ofSeconds(30);
+        private long cacheMaxSize = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public long getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(long cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+}
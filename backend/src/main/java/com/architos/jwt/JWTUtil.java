@@ -1,6 +1,7 @@
 package com.architos.jwt;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
 import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,62 +19,103 @@ import static java.time.temporal.ChronoUnit.DAYS;
 @Service
 public class JWTUtil {
 
+    static final String SCOPES_CLAIM = "scopes";
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+    static final String PURPOSE_CLAIM = "purpose";
+    /**
+     * Purpose of the tickets that open {@code GET /api/v1/customers/events}
+     * for clients, such as a browser {@code EventSource}, that can't send
+     * an Authorization header.
+     */
+    public static final String EVENT_STREAM_PURPOSE = "customer-events";
+
     private static final String SECRET_KEY = "foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789";
 
+    // both are immutable and thread-safe, so they are built once instead of per token
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser jwtParser = Jwts
+            .parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+
     public String issueToken(String subject) {
         return issueToken(subject, Map.of());
     }
 
     public String issueToken(String subject, String... scopes) {
-        return issueToken(subject, Map.of("scopes", scopes));
+        return issueToken(subject, Map.of(SCOPES_CLAIM, scopes));
     }
 
     public String issueToken(String subject, List<String> scopes) {
-        return issueToken(subject, Map.of("scopes", scopes));
+        return issueToken(subject, Map.of(SCOPES_CLAIM, scopes));
+    }
+
+    /**
+     * Issues a token that carries everything the stateless mode of
+     * {@link JWTAuthenticationFilter} needs to authenticate without a lookup.
+     */
+    public String issueToken(String subject,
+                             Integer userId,
+                             int tokenVersion,
+                             List<String> scopes) {
+        return issueToken(subject, Map.of(
+                SCOPES_CLAIM, scopes,
+                USER_ID_CLAIM, userId,
+                TOKEN_VERSION_CLAIM, tokenVersion));
     }
 
     public String issueToken(
             String subject,
             Map<String, Object> claims) {
+        return issueToken(subject, claims, Instant.now().plus(15, DAYS));
+    }
+
+    /**
+     * Issues a short-lived ticket with the identity of an already verified
+     * token, usable only where {@code purpose} is expected. Tickets travel
+     * in URLs, so they never work as bearer tokens.
+     */
+    public String issueTicket(VerifiedToken token, String purpose, Instant expiresAt) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SCOPES_CLAIM, token.scopes());
+        if (token.userId() != null) {
+            claims.put(USER_ID_CLAIM, token.userId());
+        }
+        if (token.tokenVersion() != null) {
+            claims.put(TOKEN_VERSION_CLAIM, token.tokenVersion());
+        }
+        claims.put(PURPOSE_CLAIM, purpose);
+        return issueToken(token.subject(), claims, expiresAt);
+    }
+
+    private String issueToken(String subject, Map<String, Object> claims, Instant expiresAt) {
         String token = Jwts
                 .builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuer("https://architos.com")
                 .setIssuedAt(Date.from(Instant.now()))
-                .setExpiration(
-                        Date.from(
-                                Instant.now().plus(15, DAYS)))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(Date.from(expiresAt))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
         return token;
     }
 
-    public String getSubject(String token) {
-        return getClaims(token).getSubject();
-    }
-
-    private Claims getClaims(String token) {
-        Claims claims = Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims;
+    /**
+     * Checks the signature once and returns the parsed claims.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        return new VerifiedToken(jwtParser.parseClaimsJws(token).getBody());
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    public String getSubject(String token) {
+        return verify(token).subject();
     }
 
     public boolean isTokenValid(String jwt, String username) {
-        String subject = getSubject(jwt);
-        return subject.equals(username) && !isTokenExpired(jwt);
-    }
-
-    private boolean isTokenExpired(String jwt) {
-        Date today = Date.from(Instant.now());
-        return getClaims(jwt).getExpiration().before(today);
+        return verify(jwt).isValidFor(username);
     }
 }
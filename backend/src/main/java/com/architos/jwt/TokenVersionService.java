@@ -0,0 +1,97 @@
+package com.architos.jwt;
+
+import com.architos.customer.CustomerInvalidationEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-customer token version used to revoke stateless JWTs. Bumping the
+ * version invalidates every token issued before it. Lookups are cached for
+ * a short TTL, which bounds how long a revoked token keeps working on a node
+ * that missed the invalidation broadcast.
+ */
+@Service
+public class TokenVersionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JWTConfig jwtConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<Integer, Integer> versions;
+
+    public TokenVersionService(JdbcTemplate jdbcTemplate,
+                               JWTConfig jwtConfig,
+                               MeterRegistry meterRegistry,
+                               ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtConfig = jwtConfig;
+        this.eventPublisher = eventPublisher;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(jwtConfig.getRevocation().getCacheMaxSize())
+                .expireAfterWrite(jwtConfig.getRevocation().getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "token_versions");
+    }
+
+    public int currentVersion(Integer customerId) {
+        return selectVersion(customerId).orElse(0);
+    }
+
+    /**
+     * A token is current when revocation is disabled, or when its version
+     * matches the customer's. Tokens of deleted customers are never current.
+     */
+    public boolean isCurrent(VerifiedToken token) {
+        if (!jwtConfig.getRevocation().isEnabled()) {
+            return true;
+        }
+        if (token.userId() == null || token.tokenVersion() == null) {
+            return false;
+        }
+        Integer version = versions.get(token.userId(), id -> selectVersion(id).orElse(null));
+        return version != null && version.equals(token.tokenVersion());
+    }
+
+    /**
+     * Invalidates every token issued so far to the customer. Keyed by id
+     * rather than by the token's email subject, which goes stale when the
+     * email changes.
+     *
+     * @return false if there is no such customer
+     */
+    public boolean revokeTokens(Integer customerId) {
+        List<String> emails = jdbcTemplate.queryForList("""
+                UPDATE customer SET token_version = token_version + 1
+                WHERE id = ?
+                RETURNING email
+                """, String.class, customerId);
+        versions.invalidate(customerId);
+        emails.forEach(email -> eventPublisher.publishEvent(CustomerInvalidationEvent.local(customerId, email)));
+        return !emails.isEmpty();
+    }
+
+    @EventListener
+    public void onCustomerInvalidation(CustomerInvalidationEvent event) {
+        if (event.flushAll()) {
+            versions.invalidateAll();
+        } else {
+            versions.invalidateAll(event.customerIds());
+        }
+    }
+
+    private Optional<Integer> selectVersion(Integer customerId) {
+        return jdbcTemplate.queryForList(
+                "SELECT token_version FROM customer WHERE id = ?",
+                Integer.class, customerId
+        ).stream().findFirst();
+    }
+}
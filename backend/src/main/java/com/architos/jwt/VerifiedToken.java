@@ -0,0 +1,50 @@
+package com.architos.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A JWT whose signature has already been checked. Everything else is answered
+ * from the parsed claims, so a request never pays for a second parse.
+ */
+public record VerifiedToken(Claims claims) {
+
+    public String subject() {
+        return claims.getSubject();
+    }
+
+    public Integer userId() {
+        Number userId = claims.get(JWTUtil.USER_ID_CLAIM, Number.class);
+        return userId == null ? null : userId.intValue();
+    }
+
+    public Integer tokenVersion() {
+        Number version = claims.get(JWTUtil.TOKEN_VERSION_CLAIM, Number.class);
+        return version == null ? null : version.intValue();
+    }
+
+    public List<String> scopes() {
+        List<?> scopes = claims.get(JWTUtil.SCOPES_CLAIM, List.class);
+        return scopes == null ? List.of() : scopes.stream().map(String::valueOf).toList();
+    }
+
+    /**
+     * What a ticket may be used for, or {@code null} for an ordinary bearer
+     * token.
+     */
+    public String purpose() {
+        return claims.get(JWTUtil.PURPOSE_CLAIM, String.class);
+    }
+
+    public boolean isExpired() {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.toInstant().isBefore(Instant.now());
+    }
+
+    public boolean isValidFor(String username) {
+        return subject() != null && subject().equals(username) && !isExpired();
+    }
+}
@@ -0,0 +1,71 @@
+package com.architos.s3;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single HTTP byte range as S3 accepts it: {@code bytes=first-last},
+ * {@code bytes=first-} or the suffix form {@code bytes=-length}.
+ */
+public record ByteRange(Long first, Long last) {
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    /**
+     * @return the range, or empty for anything else (several ranges, other
+     * units, malformed values), which callers answer with the whole object
+     */
+    public static Optional<ByteRange> parse(String header) {
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        Long first = matcher.group(1).isEmpty() ? null : Long.parseLong(matcher.group(1));
+        Long last = matcher.group(2).isEmpty() ? null : Long.parseLong(matcher.group(2));
+        if (first == null && last == null) {
+            return Optional.empty();
+        }
+        if (first != null && last != null && last < first) {
+            return Optional.empty();
+        }
+        return Optional.of(new ByteRange(first, last));
+    }
+
+    /**
+     * Resolves the range against an object of {@code length} bytes.
+     *
+     * @return the inclusive offsets, or empty if no byte of the object is
+     * selected (416)
+     */
+    public Optional<Span> resolve(long length) {
+        if (first == null) {
+            // suffix: the last n bytes
+            if (last == 0 || length == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new Span(Math.max(0, length - last), length - 1));
+        }
+        if (first >= length) {
+            return Optional.empty();
+        }
+        long end = last == null ? length - 1 : Math.min(last, length - 1);
+        return Optional.of(new Span(first, end));
+    }
+
+    @Override
+    public String toString() {
+        return "bytes=" + (first == null ? "" : first) + "-" + (last == null ? "" : last);
+    }
+
+    public record Span(long start, long end) {
+
+        public long length() {
+            return end - start + 1;
+        }
+
+        public String contentRange(long total) {
+            return "bytes %d-%d/%d".formatted(start, end, total);
+        }
+    }
+}
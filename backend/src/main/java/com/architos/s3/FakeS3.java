@@ -1,9 +1,8 @@
 package com.architos.s3;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkClientException;
@@ -16,15 +15,21 @@ import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class FakeS3 implements S3Client {
 
@@ -51,10 +56,7 @@ public class FakeS3 implements S3Client {
 
         logger.info("FakeS3: Attempting to put object - bucket: {}, key: {}, path: {}", bucket, key, fullPath);
 
-        try {
-            InputStream inputStream = requestBody.contentStreamProvider().newStream();
-            byte[] bytes = IOUtils.toByteArray(inputStream);
-
+        try (InputStream inputStream = requestBody.contentStreamProvider().newStream()) {
             // Ensure directory exists
             File file = new File(fullPath);
             File parentDir = file.getParentFile();
@@ -63,9 +65,11 @@ public class FakeS3 implements S3Client {
                 logger.debug("FakeS3: Created directory structure: {} - success: {}", parentDir.getPath(), created);
             }
 
-            FileUtils.writeByteArrayToFile(file, bytes);
+            // copied through a small buffer, like the real client streams it
+            long size = Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            writeContentType(file, putObjectRequest.contentType());
             logger.info("FakeS3: Successfully wrote object - bucket: {}, key: {}, size: {} bytes", bucket, key,
-                    bytes.length);
+                    size);
             return PutObjectResponse.builder().build();
 
         } catch (IOException e) {
@@ -94,19 +98,107 @@ public class FakeS3 implements S3Client {
                         .build();
             }
 
-            FileInputStream fileInputStream = new FileInputStream(file);
-            logger.info("FakeS3: Successfully retrieved object - bucket: {}, key: {}, size: {} bytes",
-                    bucket, key, file.length());
+            long length = file.length();
+            ByteRange.Span span = resolveRange(getObjectRequest.range(), length, key);
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            logger.info("FakeS3: Successfully retrieved object - bucket: {}, key: {}, size: {} bytes, range: {}",
+                    bucket, key, length, span);
+            if (span == null) {
+                return new ResponseInputStream<>(
+                        GetObjectResponse.builder()
+                                .contentLength(length)
+                                .contentType(readContentType(file))
+                                .build(),
+                        Channels.newInputStream(channel));
+            }
             return new ResponseInputStream<>(
-                    GetObjectResponse.builder().build(),
-                    fileInputStream);
-
-        } catch (FileNotFoundException e) {
+                    GetObjectResponse.builder()
+                            .contentLength(span.length())
+                            .contentRange(span.contentRange(length))
+                            .contentType(readContentType(file))
+                            .build(),
+                    new ChannelRangeInputStream(channel, span));
+
+        } catch (NoSuchFileException e) {
             logger.error("FakeS3: File not found - bucket: {}, key: {}, path: {}", bucket, key, fullPath);
             throw NoSuchKeyException.builder()
                     .message("The specified key does not exist: " + key)
                     .cause(e)
                     .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file from fake S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Same rules as S3: a range that doesn't parse is ignored, one that
+     * starts past the end is a 416 InvalidRange.
+     *
+     * @return the span to read, or {@code null} for the whole object
+     */
+    private static ByteRange.Span resolveRange(String range, long length, String key) {
+        if (range == null) {
+            return null;
+        }
+        return ByteRange.parse(range)
+                .map(byteRange -> byteRange.resolve(length)
+                        .orElseThrow(() -> S3Exception.builder()
+                                .message("The requested range is not satisfiable: " + key)
+                                .statusCode(416)
+                                .awsErrorDetails(AwsErrorDetails.builder()
+                                        .errorCode("InvalidRange")
+                                        .build())
+                                .build()))
+                .orElse(null);
+    }
+
+    /**
+     * Reads {@code span} of the file with positioned reads, so the channel's
+     * own position is never moved and nothing outside the span is touched.
+     */
+    private static final class ChannelRangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private ChannelRangeInputStream(FileChannel channel, ByteRange.Span span) {
+            this.channel = channel;
+            this.position = span.start();
+            this.end = span.end() + 1;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = end - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+            int read = channel.read(buffer, position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
         }
     }
 
@@ -130,9 +222,33 @@ public class FakeS3 implements S3Client {
         logger.debug("FakeS3: Object exists - bucket: {}, key: {}, size: {} bytes", bucket, key, file.length());
         return HeadObjectResponse.builder()
                 .contentLength(file.length())
+                .contentType(readContentType(file))
                 .build();
     }
 
+    // S3 keeps the content type as object metadata; here it sits next to the file
+    private static void writeContentType(File file, String contentType) throws IOException {
+        Path metadata = contentTypePath(file);
+        if (contentType == null) {
+            Files.deleteIfExists(metadata);
+        } else {
+            Files.writeString(metadata, contentType);
+        }
+    }
+
+    private static String readContentType(File file) {
+        try {
+            return Files.readString(contentTypePath(file));
+        } catch (IOException e) {
+            // stored before content types were kept, or written without one
+            return null;
+        }
+    }
+
+    private static Path contentTypePath(File file) {
+        return Paths.get(file.getPath() + ".content-type");
+    }
+
     private String buildObjectFullPath(String bucketName, String key) {
         return PATH + "/" + bucketName + "/" + key;
     }
@@ -0,0 +1,12 @@
+package com.architos.s3;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A presigned PUT. The client must send exactly {@code headers}, since they
+ * are part of the signature; that is what pins the content type and length.
+ */
+public record PresignedUpload(URL url, Instant expiresAt, Map<String, String> headers) {
+}
@@ -0,0 +1,7 @@
+package com.architos.s3;
+
+import java.net.URL;
+import java.time.Instant;
+
+public record PresignedUrl(URL url, Instant expiresAt) {
+}
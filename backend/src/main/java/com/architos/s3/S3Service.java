@@ -1,9 +1,11 @@
 package com.architos.s3;
 
+import com.architos.exception.RangeNotSatisfiableException;
 import com.architos.exception.S3ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.ResponseInputStream;
@@ -13,10 +15,13 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 
 @Service
 public class S3Service {
@@ -29,24 +34,41 @@ public class S3Service {
     }
 
     public void putObject(String bucketName, String key, byte[] file) {
+        putObject(bucketName, key, RequestBody.fromBytes(file), file.length, null);
+    }
+
+    /**
+     * Streams the object to S3 without holding it on the heap; the SDK reads
+     * {@code contentLength} bytes from {@code inputStream} through a small
+     * buffer. The caller keeps ownership of the stream and closes it.
+     */
+    public void putObject(String bucketName, String key, InputStream inputStream,
+            long contentLength, String contentType) {
+        putObject(bucketName, key, RequestBody.fromInputStream(inputStream, contentLength),
+                contentLength, contentType);
+    }
+
+    private void putObject(String bucketName, String key, RequestBody requestBody,
+            long contentLength, String contentType) {
         // Add structured logging context for S3 operations
         MDC.put("s3_operation", "put_object");
         MDC.put("s3_bucket", bucketName);
         MDC.put("s3_key", key);
-        MDC.put("s3_file_size", String.valueOf(file.length));
+        MDC.put("s3_file_size", String.valueOf(contentLength));
 
         long startTime = System.currentTimeMillis();
 
         try {
             logger.info("Attempting to upload object to S3 - bucket: {}, key: {}, size: {} bytes",
-                    bucketName, key, file.length);
+                    bucketName, key, contentLength);
 
             PutObjectRequest objectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
+                    .contentType(contentType)
                     .build();
 
-            s3.putObject(objectRequest, RequestBody.fromBytes(file));
+            s3.putObject(objectRequest, requestBody);
 
             long duration = System.currentTimeMillis() - startTime;
             MDC.put("s3_duration_ms", String.valueOf(duration));
@@ -181,7 +203,113 @@ public class S3Service {
         }
     }
 
+    /**
+     * Opens the object without reading it; the caller streams the body and
+     * must close the returned stream, which also releases the connection.
+     */
+    public ResponseInputStream<GetObjectResponse> getObjectStream(String bucketName, String key) {
+        return getObjectStream(bucketName, key, null);
+    }
+
+    /**
+     * Like {@link #getObjectStream(String, String)}, but asks S3 for only the
+     * given range ({@code null} for the whole object). The response's
+     * {@code contentRange} is set when S3 honoured the range.
+     *
+     * @throws RangeNotSatisfiableException if the range starts past the end
+     */
+    public ResponseInputStream<GetObjectResponse> getObjectStream(String bucketName, String key,
+            ByteRange range) {
+        MDC.put("s3_operation", "get_object_stream");
+        MDC.put("s3_bucket", bucketName);
+        MDC.put("s3_key", key);
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            logger.info("Opening object stream from S3 - bucket: {}, key: {}, range: {}", bucketName, key, range);
+
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range(range == null ? null : range.toString())
+                    .build();
+
+            ResponseInputStream<GetObjectResponse> response = s3.getObject(getObjectRequest);
+
+            long duration = System.currentTimeMillis() - startTime;
+            MDC.put("s3_duration_ms", String.valueOf(duration));
+
+            logger.info("Opened object stream from S3 - bucket: {}, key: {}, size: {} bytes, duration: {} ms",
+                    bucketName, key, response.response().contentLength(), duration);
+            return response;
+
+        } catch (NoSuchKeyException e) {
+            long duration = System.currentTimeMillis() - startTime;
+            MDC.put("s3_duration_ms", String.valueOf(duration));
+            MDC.put("s3_error_code", "NoSuchKey");
+
+            logger.warn("Object not found in S3 - bucket: {}, key: {}, duration: {} ms", bucketName, key, duration);
+            throw new S3ServiceException("File not found in S3: " + key, e);
+
+        } catch (AwsServiceException e) {
+            long duration = System.currentTimeMillis() - startTime;
+            MDC.put("s3_duration_ms", String.valueOf(duration));
+            MDC.put("s3_error_code", e.awsErrorDetails() != null ? e.awsErrorDetails().errorCode() : "unknown");
+
+            if (range != null && e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                logger.info("Range not satisfiable for S3 object - bucket: {}, key: {}, range: {}",
+                        bucketName, key, range);
+                throw new RangeNotSatisfiableException(
+                        "Requested range %s is not satisfiable".formatted(range),
+                        objectLength(bucketName, key));
+            }
+
+            logger.error(
+                    "AWS service error while opening object stream from S3 - bucket: {}, key: {}, error_code: {}, error: {}, duration: {} ms",
+                    bucketName, key,
+                    e.awsErrorDetails() != null ? e.awsErrorDetails().errorCode() : "unknown",
+                    e.getMessage(), duration, e);
+
+            String errorMessage = e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : e.getMessage();
+            throw new S3ServiceException("Failed to retrieve file from S3: " + errorMessage, e);
+
+        } catch (SdkClientException e) {
+            long duration = System.currentTimeMillis() - startTime;
+            MDC.put("s3_duration_ms", String.valueOf(duration));
+
+            logger.error(
+                    "SDK client error while opening object stream from S3 - bucket: {}, key: {}, error: {}, duration: {} ms",
+                    bucketName, key, e.getMessage(), duration, e);
+            throw new S3ServiceException("S3 client error during retrieval: " + e.getMessage(), e);
+
+        } finally {
+            // Clean up MDC
+            MDC.remove("s3_operation");
+            MDC.remove("s3_bucket");
+            MDC.remove("s3_key");
+            MDC.remove("s3_duration_ms");
+            MDC.remove("s3_error_code");
+        }
+    }
+
+    private long objectLength(String bucketName, String key) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        return s3.headObject(headObjectRequest).contentLength();
+    }
+
     public boolean objectExists(String bucketName, String key) {
+        return headObject(bucketName, key).isPresent();
+    }
+
+    /**
+     * The object's metadata (size, content type), or empty if there is no
+     * such key.
+     */
+    public Optional<HeadObjectResponse> headObject(String bucketName, String key) {
         logger.debug("Checking if object exists in S3 - bucket: {}, key: {}", bucketName, key);
 
         try {
@@ -190,13 +318,13 @@ public class S3Service {
                     .key(key)
                     .build();
 
-            s3.headObject(headObjectRequest);
+            HeadObjectResponse response = s3.headObject(headObjectRequest);
             logger.debug("Object exists in S3 - bucket: {}, key: {}", bucketName, key);
-            return true;
+            return Optional.of(response);
 
         } catch (NoSuchKeyException e) {
             logger.debug("Object does not exist in S3 - bucket: {}, key: {}", bucketName, key);
-            return false;
+            return Optional.empty();
 
         } catch (AwsServiceException e) {
             logger.error("AWS service error while checking object existence in S3 - bucket: {}, key: {}, error: {}",
@@ -0,0 +1,119 @@
+package com.architos.s3;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Presigns S3 URLs so clients can reach objects without going through this
+ * server. Signing is local computation (no call to S3), but it is not free,
+ * so download URLs are reused until half of their lifetime has passed. A URL
+ * handed out is therefore always valid for at least {@code ttl / 2}. Upload
+ * URLs are for a fresh key each time and are never cached.
+ */
+@Service
+public class S3UrlSigner {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3UrlSigner.class);
+
+    private static final long MAX_CACHED_URLS = 10_000;
+
+    private final S3Presigner presigner;
+    private final Cache<GetKey, PresignedUrl> getUrls;
+
+    public S3UrlSigner(S3Presigner presigner, MeterRegistry meterRegistry) {
+        this.presigner = presigner;
+        this.getUrls = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_URLS)
+                .expireAfter(new HalfLifeExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, getUrls, "presigned_get_urls");
+    }
+
+    public PresignedUrl presignGetObject(String bucketName, String key, Duration ttl) {
+        return getUrls.get(new GetKey(bucketName, key, ttl), this::signGetObject);
+    }
+
+    private PresignedUrl signGetObject(GetKey getKey) {
+        logger.debug("Presigning S3 GET - bucket: {}, key: {}, ttl: {}",
+                getKey.bucketName(), getKey.key(), getKey.ttl());
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(getKey.ttl())
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(getKey.bucketName())
+                        .key(getKey.key())
+                        .build())
+                .build();
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(presignRequest);
+        return new PresignedUrl(presigned.url(), presigned.expiration());
+    }
+
+    /**
+     * Presigns a PUT of exactly {@code contentLength} bytes of
+     * {@code contentType}; S3 rejects a request whose headers differ.
+     */
+    public PresignedUpload presignPutObject(String bucketName, String key, String contentType,
+            long contentLength, Duration ttl) {
+        logger.debug("Presigning S3 PUT - bucket: {}, key: {}, content_type: {}, size: {} bytes, ttl: {}",
+                bucketName, key, contentType, contentLength, ttl);
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .build())
+                .build();
+        PresignedPutObjectRequest presigned = presigner.presignPutObject(presignRequest);
+
+        // host is set by any HTTP client from the URL
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUpload(presigned.url(), presigned.expiration(), headers);
+    }
+
+    private record GetKey(String bucketName, String key, Duration ttl) {
+    }
+
+    private static final class HalfLifeExpiry implements Expiry<GetKey, PresignedUrl> {
+
+        @Override
+        public long expireAfterCreate(GetKey key, PresignedUrl value, long currentTime) {
+            return key.ttl().dividedBy(2).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(GetKey key, PresignedUrl value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(GetKey key, PresignedUrl value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.architos.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "password.hashing")
+public class PasswordHashingConfig {
+
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private Duration timeout = Duration.ofSeconds(10);
+    // batches hash on their own threads so they never starve logins
+    private int batchPoolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // added to a batch's deadline for every row each batch thread must hash
+    private Duration batchItemTimeout = Duration.ofMillis(250);
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getBatchPoolSize() {
+        return batchPoolSize;
+    }
+
+    public void setBatchPoolSize(int batchPoolSize) {
+        this.batchPoolSize = batchPoolSize;
+    }
+
+    public Duration getBatchItemTimeout() {
+        return batchItemTimeout;
+    }
+
+    public void setBatchItemTimeout(Duration batchItemTimeout) {
+        this.batchItemTimeout = batchItemTimeout;
+    }
+}
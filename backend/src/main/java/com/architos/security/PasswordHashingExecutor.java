@@ -0,0 +1,190 @@
+package com.architos.security;
+
+import com.architos.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Small fixed pool that runs BCrypt work off the servlet threads. The queue is
+ * bounded and rejects instead of growing, so a registration or login burst
+ * gets 503s rather than tying up every request thread on hashing. Batches run
+ * on a second, smaller pool so a large import never holds the threads that
+ * logins and registrations wait for.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor batchExecutor;
+    private final long timeoutMillis;
+    private final long batchItemTimeoutMillis;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+    private final Counter rejectionCounter;
+
+    public PasswordHashingExecutor(PasswordHashingConfig config, MeterRegistry meterRegistry) {
+        this.executor = newPool("password-hashing-", config.getPoolSize(), config.getQueueCapacity());
+        // one batch may wait while another runs; a third is rejected
+        this.batchExecutor = newPool("password-hashing-batch-", config.getBatchPoolSize(),
+                config.getBatchPoolSize());
+        this.timeoutMillis = config.getTimeout().toMillis();
+        this.batchItemTimeoutMillis = config.getBatchItemTimeout().toMillis();
+
+        Gauge.builder("password_hashing_queue_depth", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password_hashing_active_threads", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing threads currently busy")
+                .register(meterRegistry);
+        Gauge.builder("password_hashing_batch_active_threads", batchExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing threads currently busy with batches")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password_hashing_wait_duration")
+                .description("Time a password hashing task spent queued before it started")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password_hashing_duration")
+                .description("Time spent hashing or verifying a password")
+                .register(meterRegistry);
+        this.rejectionCounter = Counter.builder("password_hashing_rejections_total")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    private static ThreadPoolExecutor newPool(String namePrefix, int size, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                size,
+                size,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @throws ServiceUnavailableException if the queue is full or the task
+     *                                     does not finish within the timeout
+     */
+    public <T> T execute(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectionCounter.increment();
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", e);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Applies the task to every item in parallel on the batch pool and returns
+     * the results in input order. The whole batch shares one deadline that
+     * grows with its size: {@code password.hashing.timeout} plus
+     * {@code password.hashing.batch-item-timeout} for every row each batch
+     * thread has to hash.
+     *
+     * @throws ServiceUnavailableException if the workers cannot be queued or
+     *                                     the batch misses its deadline
+     */
+    public <T, R> List<R> executeAll(List<T> items, Function<T, R> task) {
+        List<R> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        if (items.isEmpty()) {
+            return results;
+        }
+        int workers = Math.min(items.size(), batchExecutor.getMaximumPoolSize());
+        AtomicInteger next = new AtomicInteger();
+        long queuedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(batchExecutor.submit(() -> {
+                    waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                    for (int index = next.getAndIncrement();
+                         index < items.size() && !Thread.currentThread().isInterrupted();
+                         index = next.getAndIncrement()) {
+                        T item = items.get(index);
+                        results.set(index, hashTimer.record(() -> task.apply(item)));
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            rejectionCounter.increment();
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", e);
+        }
+
+        long rowsPerWorker = (items.size() + workers - 1) / workers;
+        long deadline = queuedAt + TimeUnit.MILLISECONDS.toNanos(
+                timeoutMillis + rowsPerWorker * batchItemTimeoutMillis);
+        try {
+            for (Future<?> future : futures) {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", e);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,2 @@
+ALTER TABLE customer
+ADD COLUMN token_version INT NOT NULL DEFAULT 0;
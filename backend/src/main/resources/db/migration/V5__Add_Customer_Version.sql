@@ -0,0 +1,20 @@
+ALTER TABLE customer
+ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+-- bumped by the database so every writer (JDBC, JPA, COPY import) agrees;
+-- only columns that are part of the customer representation count
+CREATE FUNCTION customer_bump_version() RETURNS trigger AS $$
+BEGIN
+    IF ROW(NEW.name, NEW.email, NEW.age, NEW.gender, NEW.profile_image_id)
+        IS DISTINCT FROM ROW(OLD.name, OLD.email, OLD.age, OLD.gender, OLD.profile_image_id) THEN
+        NEW.version := OLD.version + 1;
+    ELSE
+        NEW.version := OLD.version;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_version
+BEFORE UPDATE ON customer
+FOR EACH ROW EXECUTE FUNCTION customer_bump_version();
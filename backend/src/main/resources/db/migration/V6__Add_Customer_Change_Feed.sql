@@ -0,0 +1,38 @@
+ALTER TABLE customer
+ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp();
+
+CREATE INDEX customer_updated_at_id_idx ON customer (updated_at, id);
+
+-- updated_at moves together with version, i.e. only on visible changes
+CREATE OR REPLACE FUNCTION customer_bump_version() RETURNS trigger AS $$
+BEGIN
+    IF ROW(NEW.name, NEW.email, NEW.age, NEW.gender, NEW.profile_image_id)
+        IS DISTINCT FROM ROW(OLD.name, OLD.email, OLD.age, OLD.gender, OLD.profile_image_id) THEN
+        NEW.version := OLD.version + 1;
+        NEW.updated_at := clock_timestamp();
+    ELSE
+        NEW.version := OLD.version;
+        NEW.updated_at := OLD.updated_at;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE customer_tombstone (
+    id BIGINT PRIMARY KEY,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX customer_tombstone_deleted_at_id_idx ON customer_tombstone (deleted_at, id);
+
+CREATE FUNCTION customer_record_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO customer_tombstone (id) VALUES (OLD.id)
+    ON CONFLICT (id) DO UPDATE SET deleted_at = clock_timestamp();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_tombstone
+AFTER DELETE ON customer
+FOR EACH ROW EXECUTE FUNCTION customer_record_tombstone();
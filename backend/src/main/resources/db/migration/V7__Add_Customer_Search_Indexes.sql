@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- trigram GiST indexes serve ILIKE '%term%', prefix matches and the
+-- similarity (%) operator without scanning the table, and can return rows
+-- in <-> (distance) order so search reads only the nearest candidates
+CREATE INDEX customer_name_trgm_idx ON customer USING gist (name gist_trgm_ops);
+CREATE INDEX customer_email_trgm_idx ON customer USING gist (email gist_trgm_ops);
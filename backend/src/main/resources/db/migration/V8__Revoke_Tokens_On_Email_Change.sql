@@ -0,0 +1,14 @@
+-- tokens carry the email as their subject, so an email change revokes them;
+-- done by the database so every writer (JDBC, JPA) agrees
+CREATE FUNCTION customer_revoke_tokens_on_email_change() RETURNS trigger AS $$
+BEGIN
+    IF NEW.email IS DISTINCT FROM OLD.email THEN
+        NEW.token_version := OLD.token_version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_token_version
+BEFORE UPDATE OF email ON customer
+FOR EACH ROW EXECUTE FUNCTION customer_revoke_tokens_on_email_change();
@@ -0,0 +1,39 @@
+-- the change feed orders by the writing transaction rather than by time: an
+-- open transaction holds back the snapshot xmin, so every row at or above it
+-- waits until that transaction ends and nothing becomes visible behind the
+-- watermark, however long the transaction runs
+ALTER TABLE customer
+ADD COLUMN xact_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+ALTER TABLE customer_tombstone
+ADD COLUMN xact_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+DROP INDEX customer_updated_at_id_idx;
+DROP INDEX customer_tombstone_deleted_at_id_idx;
+
+CREATE INDEX customer_xact_id_id_idx ON customer (xact_id, id);
+CREATE INDEX customer_tombstone_xact_id_id_idx ON customer_tombstone (xact_id, id);
+
+CREATE OR REPLACE FUNCTION customer_bump_version() RETURNS trigger AS $$
+BEGIN
+    IF ROW(NEW.name, NEW.email, NEW.age, NEW.gender, NEW.profile_image_id)
+        IS DISTINCT FROM ROW(OLD.name, OLD.email, OLD.age, OLD.gender, OLD.profile_image_id) THEN
+        NEW.version := OLD.version + 1;
+        NEW.updated_at := clock_timestamp();
+        NEW.xact_id := pg_current_xact_id();
+    ELSE
+        NEW.version := OLD.version;
+        NEW.updated_at := OLD.updated_at;
+        NEW.xact_id := OLD.xact_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION customer_record_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO customer_tombstone (id) VALUES (OLD.id)
+    ON CONFLICT (id) DO UPDATE SET deleted_at = clock_timestamp(), xact_id = pg_current_xact_id();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
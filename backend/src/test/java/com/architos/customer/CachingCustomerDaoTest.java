@@ -0,0 +1,224 @@
+package com.architos.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDaoTest {
+
+    @Mock
+    private CustomerDao delegate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private MeterRegistry meterRegistry;
+    private CachingCustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CachingCustomerDao(delegate, new CustomerCacheConfig(), meterRegistry, eventPublisher);
+    }
+
+    @Test
+    void selectCustomerByIdIsServedFromCacheAfterFirstLoad() {
+        // Given
+        int id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        // When
+        Optional<Customer> first = underTest.selectCustomerById(id);
+        Optional<Customer> second = underTest.selectCustomerById(id);
+        boolean exists = underTest.existsCustomerById(id);
+
+        // Then
+        assertThat(first).contains(customer);
+        assertThat(second).contains(customer);
+        assertThat(exists).isTrue();
+        verify(delegate, times(1)).selectCustomerById(id);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "customers_by_id").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "customers_by_id").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedCustomerIsNotAffectedByCallerMutations() {
+        // Given
+        int id = 1;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE)));
+
+        // When
+        underTest.selectCustomerById(id).orElseThrow().setName("Mutated");
+
+        // Then
+        assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(
+                c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void selectCustomersByIdsOnlyQueriesCacheMisses() {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        when(delegate.selectCustomerById(1)).thenReturn(Optional.of(alex));
+        when(delegate.selectCustomersByIds(List.of(2, 3))).thenReturn(List.of(jamila));
+        underTest.selectCustomerById(1);
+
+        // When
+        List<Customer> actual = underTest.selectCustomersByIds(List.of(1, 2, 3));
+
+        // Then
+        assertThat(actual).containsExactlyInAnyOrder(alex, jamila);
+        verify(delegate).selectCustomersByIds(List.of(2, 3));
+    }
+
+    @Test
+    void missesAreNotCached() {
+        // Given
+        String email = "alex@gmail.com";
+        when(delegate.selectUserByEmail(email)).thenReturn(Optional.empty());
+
+        // When
+        underTest.existsCustomerWithEmail(email);
+        underTest.existsCustomerWithEmail(email);
+
+        // Then
+        verify(delegate, times(2)).selectUserByEmail(email);
+    }
+
+    @Test
+    void updateEvictsCustomerUnderOldAndNewEmail() {
+        // Given
+        int id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(delegate.selectUserByEmail("alex@gmail.com")).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+        underTest.selectUserByEmail("alex@gmail.com");
+
+        Customer update = new Customer(id, "Alex", "alexandro@gmail.com", "password", 19, Gender.MALE);
+
+        // When
+        underTest.updateCustomer(update);
+        underTest.selectCustomerById(id);
+        underTest.selectUserByEmail("alex@gmail.com");
+
+        // Then
+        verify(delegate).updateCustomer(update);
+        verify(delegate, times(2)).selectCustomerById(id);
+        verify(delegate, times(2)).selectUserByEmail("alex@gmail.com");
+        assertThat(meterRegistry.get("customer_cache_invalidations_total").counter().count()).isEqualTo(1);
+        verify(eventPublisher).publishEvent(CustomerInvalidationEvent.local(id, "alexandro@gmail.com"));
+    }
+
+    @Test
+    void remoteInvalidationEvictsWithoutRepublishing() {
+        // Given
+        int id = 1;
+        String email = "alex@gmail.com";
+        Customer customer = new Customer(id, "Alex", email, "password", 19, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(delegate.selectUserByEmail(email)).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+        underTest.selectUserByEmail(email);
+
+        // When
+        underTest.onRemoteInvalidation(CustomerInvalidationEvent.remote(Set.of(id), Set.of()));
+        underTest.selectCustomerById(id);
+        underTest.selectUserByEmail(email);
+
+        // Then
+        verify(delegate, times(2)).selectCustomerById(id);
+        verify(delegate, times(2)).selectUserByEmail(email);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void remoteFlushAllEmptiesCache() {
+        // Given
+        int id = 1;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE)));
+        underTest.selectCustomerById(id);
+
+        // When
+        underTest.onRemoteInvalidation(CustomerInvalidationEvent.remoteFlushAll());
+        underTest.selectCustomerById(id);
+
+        // Then
+        verify(delegate, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void deleteEvictsEmailEntryEvenWithoutIdEntry() {
+        // Given
+        int id = 1;
+        String email = "alex@gmail.com";
+        Customer customer = new Customer(id, "Alex", email, "password", 19, Gender.MALE);
+        when(delegate.selectUserByEmail(email)).thenReturn(Optional.of(customer));
+        underTest.selectUserByEmail(email);
+
+        // When
+        underTest.deleteCustomerById(id);
+        underTest.selectUserByEmail(email);
+
+        // Then
+        verify(delegate).deleteCustomerById(id);
+        verify(delegate, times(2)).selectUserByEmail(email);
+    }
+
+    @Test
+    void deleteLeavesOtherCustomersEmailEntriesCached() {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        when(delegate.selectUserByEmail(alex.getEmail())).thenReturn(Optional.of(alex));
+        when(delegate.selectUserByEmail(jamila.getEmail())).thenReturn(Optional.of(jamila));
+        underTest.selectUserByEmail(alex.getEmail());
+        underTest.selectUserByEmail(jamila.getEmail());
+
+        // When
+        underTest.deleteCustomerById(1);
+        underTest.selectUserByEmail(alex.getEmail());
+        underTest.selectUserByEmail(jamila.getEmail());
+
+        // Then
+        verify(delegate, times(2)).selectUserByEmail(alex.getEmail());
+        verify(delegate, times(1)).selectUserByEmail(jamila.getEmail());
+    }
+
+    @Test
+    void profileImageUpdateEvictsCustomer() {
+        // Given
+        int id = 1;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(
+                new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE)));
+        underTest.selectCustomerById(id);
+
+        // When
+        underTest.updateCustomerProfileImageId("2222", id);
+        underTest.selectCustomerById(id);
+
+        // Then
+        verify(delegate).updateCustomerProfileImageId("2222", id);
+        verify(delegate, times(2)).selectCustomerById(id);
+    }
+}
@@ -0,0 +1,115 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import com.architos.security.OffloadingPasswordEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerBatchServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private OffloadingPasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private CustomerBatchService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerBatchService(customerDao, passwordEncoder, eventPublisher);
+    }
+
+    @Test
+    void registerCustomersReportsCreatedAndDuplicateRows() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password1", 19, Gender.MALE),
+                new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", "password2", 21, Gender.FEMALE));
+        when(passwordEncoder.encodeAll(List.of("password1", "password2"))).thenReturn(List.of("hash1", "hash2"));
+        when(customerDao.insertCustomers(any())).thenReturn(List.of(Optional.of(1), Optional.empty()));
+
+        // When
+        CustomerBatchResponse actual = underTest.registerCustomers(requests);
+
+        // Then
+        assertThat(actual.created()).isEqualTo(1);
+        assertThat(actual.duplicates()).isEqualTo(1);
+        assertThat(actual.results()).containsExactly(
+                new CustomerBatchResult(0, "alex@gmail.com", CustomerBatchResult.Status.CREATED, 1),
+                new CustomerBatchResult(1, "jamila@gmail.com", CustomerBatchResult.Status.DUPLICATE, null));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> customersCaptor = ArgumentCaptor.forClass(List.class);
+        verify(customerDao).insertCustomers(customersCaptor.capture());
+        assertThat(customersCaptor.getValue())
+                .extracting(Customer::getPassword)
+                .containsExactly("hash1", "hash2");
+        verify(eventPublisher).publishEvent(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, 1));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void registerCustomersReportsInvalidRowsWithoutInsertingThem() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password1", 19, Gender.MALE),
+                new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", "password2", null, Gender.FEMALE),
+                new CustomerRegistrationRequest(" ", "blank@gmail.com", "password3", 30, Gender.MALE));
+        when(passwordEncoder.encodeAll(List.of("password1"))).thenReturn(List.of("hash1"));
+        when(customerDao.insertCustomers(any())).thenReturn(List.of(Optional.of(1)));
+
+        // When
+        CustomerBatchResponse actual = underTest.registerCustomers(requests);
+
+        // Then
+        assertThat(actual.created()).isEqualTo(1);
+        assertThat(actual.invalid()).isEqualTo(2);
+        assertThat(actual.results()).containsExactly(
+                new CustomerBatchResult(0, "alex@gmail.com", CustomerBatchResult.Status.CREATED, 1),
+                new CustomerBatchResult(1, "jamila@gmail.com", CustomerBatchResult.Status.INVALID, null,
+                        "age must be zero or more"),
+                new CustomerBatchResult(2, "blank@gmail.com", CustomerBatchResult.Status.INVALID, null,
+                        "name is required"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Customer>> customersCaptor = ArgumentCaptor.forClass(List.class);
+        verify(customerDao).insertCustomers(customersCaptor.capture());
+        assertThat(customersCaptor.getValue()).extracting(Customer::getEmail).containsExactly("alex@gmail.com");
+    }
+
+    @Test
+    void willThrowWhenBatchIsEmptyOrTooLarge() {
+        // Given
+        CustomerRegistrationRequest request =
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("batch size must be between 1 and %s".formatted(CustomerBatchService.MAX_BATCH_SIZE));
+        assertThatThrownBy(() -> underTest.registerCustomers(
+                Collections.nCopies(CustomerBatchService.MAX_BATCH_SIZE + 1, request)))
+                .isInstanceOf(RequestValidationException.class);
+        verifyNoInteractions(customerDao, passwordEncoder, eventPublisher);
+    }
+}
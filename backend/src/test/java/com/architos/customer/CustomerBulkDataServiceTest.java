@@ -0,0 +1,139 @@
+package com.architos.customer;
+
+import com.architos.AbstractTestcontainers;
+import com.architos.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class CustomerBulkDataServiceTest extends AbstractTestcontainers {
+
+    private static final String HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoO5V7Fx7sCjR6Xe3eQX8G1u1Gq8mK1gWm";
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomerBulkDataService underTest;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerBulkDataService(
+                jdbcTemplate,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    void importMergesRowsAndCountsDuplicates() {
+        // Given
+        String existing = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String fresh = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, password, age, gender)
+                VALUES ('foo', ?, 'password', 20, 'MALE')
+                """, existing);
+        String csv = """
+                name,email,password,age,gender
+                Alex,%1$s,%3$s,19,MALE
+                Jamila,%2$s,%3$s,21,FEMALE
+                Alex,%1$s,%3$s,19,MALE
+                """.formatted(fresh, existing, HASH);
+
+        // When
+        CustomerImportResult actual = underTest.importCustomers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerImportResult(3, 1, 2));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, fresh)).isEqualTo(1);
+    }
+
+    @Test
+    void importKeepsTheFirstRowOfARepeatedEmail() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String csv = """
+                name,email,password,age,gender
+                First,%1$s,%2$s,19,MALE
+                Second,%1$s,%2$s,20,MALE
+                Third,%1$s,%2$s,21,MALE
+                """.formatted(email, HASH);
+
+        // When
+        CustomerImportResult actual = underTest.importCustomers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerImportResult(3, 1, 2));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT name FROM customer WHERE email = ?", String.class, email)).isEqualTo("First");
+    }
+
+    @Test
+    void importRejectsNegativeAges() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String csv = """
+                name,email,password,age,gender
+                Alex,%s,%s,-1,MALE
+                """.formatted(email, HASH);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.importCustomers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(RequestValidationException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, email)).isZero();
+    }
+
+    @Test
+    void importRejectsPlainTextPasswords() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String csv = """
+                name,email,password,age,gender
+                Alex,%s,password,19,MALE
+                """.formatted(email);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.importCustomers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(RequestValidationException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, email)).isZero();
+    }
+
+    @Test
+    void exportWritesHeaderAndRowsWithoutPasswords() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO customer(name, email, password, age, gender)
+                VALUES ('foo', ?, 'secret-hash', 20, 'MALE')
+                """, email);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long exported = underTest.exportCustomers(out);
+
+        // Then
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(exported).isPositive();
+        assertThat(csv).startsWith("id,name,email,age,gender,profile_image_id\n");
+        assertThat(csv).contains(email);
+        assertThat(csv).doesNotContain("secret-hash");
+    }
+}
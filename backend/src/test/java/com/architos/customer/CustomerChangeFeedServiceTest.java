@@ -0,0 +1,113 @@
+package com.architos.customer;
+
+import com.architos.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CustomerChangeFeedServiceTest extends AbstractTestcontainers {
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomerChangeFeedService underTest;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerChangeFeedService(jdbcTemplate);
+    }
+
+    @Test
+    void returnsUpsertsAndTombstonesAfterWatermarkInOrder() {
+        // Given
+        String watermark = drain(null);
+        int kept = insertCustomer();
+        int deleted = insertCustomer();
+        jdbcTemplate.update("UPDATE customer SET age = 30 WHERE id = ?", kept);
+        jdbcTemplate.update("DELETE FROM customer WHERE id = ?", deleted);
+
+        // When
+        CustomerChangeFeed actual = underTest.getChanges(watermark, 10);
+
+        // Then
+        assertThat(actual.hasMore()).isFalse();
+        assertThat(actual.changes())
+                .extracting(CustomerChange::id, CustomerChange::operation)
+                .containsExactly(
+                        tuple(kept, CustomerChange.Operation.UPSERT),
+                        tuple(deleted, CustomerChange.Operation.DELETE));
+        assertThat(actual.changes().get(0).customer().age()).isEqualTo(30);
+        assertThat(underTest.getChanges(actual.next(), 10).changes()).isEmpty();
+    }
+
+    @Test
+    void pagesWithContinuationToken() {
+        // Given
+        String watermark = drain(null);
+        int first = insertCustomer();
+        int second = insertCustomer();
+
+        // When
+        CustomerChangeFeed page = underTest.getChanges(watermark, 1);
+        CustomerChangeFeed next = underTest.getChanges(page.next(), 1);
+
+        // Then
+        assertThat(page.hasMore()).isTrue();
+        assertThat(page.changes()).extracting(CustomerChange::id).containsExactly(first);
+        assertThat(next.hasMore()).isFalse();
+        assertThat(next.changes()).extracting(CustomerChange::id).containsExactly(second);
+    }
+
+    @Test
+    void holdsBackChangesUntilOlderTransactionsFinish() throws Exception {
+        // Given
+        String watermark = drain(null);
+        int longRunning;
+        int committed;
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            longRunning = insertCustomer(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+            committed = insertCustomer();
+
+            // When
+            CustomerChangeFeed whileOpen = underTest.getChanges(watermark, 10);
+            connection.commit();
+            CustomerChangeFeed afterCommit = underTest.getChanges(whileOpen.next(), 10);
+
+            // Then
+            assertThat(whileOpen.changes()).isEmpty();
+            assertThat(whileOpen.next()).isEqualTo(watermark);
+            assertThat(afterCommit.changes())
+                    .extracting(CustomerChange::id)
+                    .containsExactly(longRunning, committed);
+        }
+    }
+
+    private String drain(String since) {
+        CustomerChangeFeed feed = underTest.getChanges(since, CustomerChangeFeedService.MAX_LIMIT);
+        while (feed.hasMore()) {
+            feed = underTest.getChanges(feed.next(), CustomerChangeFeedService.MAX_LIMIT);
+        }
+        return feed.next();
+    }
+
+    private int insertCustomer() {
+        return insertCustomer(jdbcTemplate);
+    }
+
+    private static int insertCustomer(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO customer(name, email, password, age, gender)
+                VALUES (?, ?, 'password', 20, 'MALE')
+                RETURNING id
+                """, Integer.class,
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID());
+    }
+}
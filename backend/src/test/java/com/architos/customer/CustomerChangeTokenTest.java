@@ -0,0 +1,39 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerChangeTokenTest {
+
+    @Test
+    void roundTrips() {
+        // Given
+        CustomerChangeToken token = new CustomerChangeToken(4_294_967_301L, 42);
+
+        // When
+        CustomerChangeToken actual = CustomerChangeToken.decode(token.encode());
+
+        // Then
+        assertThat(actual).isEqualTo(token);
+    }
+
+    @Test
+    void rejectsForeignTokens() {
+        // When
+        // Then
+        assertThatThrownBy(() -> CustomerChangeToken.decode(CustomerCursor.encode(5)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageStartingWith("invalid change token");
+        assertThatThrownBy(() -> CustomerChangeToken.decode("not a token"))
+                .isInstanceOf(RequestValidationException.class);
+        assertThatThrownBy(() -> CustomerChangeToken.decode(Base64.getUrlEncoder()
+                .encodeToString("chg:1714558530123456:42".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(RequestValidationException.class);
+    }
+}
@@ -0,0 +1,64 @@
+package com.architos.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerDTORowMapperTest {
+
+    @Test
+    void mapRow() throws SQLException {
+        // Given
+        CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt("id")).thenReturn(1);
+        when(resultSet.getInt("age")).thenReturn(19);
+        when(resultSet.getString("name")).thenReturn("Jamila");
+        when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
+        when(resultSet.getString("gender")).thenReturn("FEMALE");
+        when(resultSet.getString("profile_image_id")).thenReturn("22222");
+
+        // When
+        CustomerDTO actual = customerDTORowMapper.mapRow(resultSet, 1);
+
+        // Then
+        Customer customer = new Customer(
+                1, "Jamila", "jamila@gmail.com", "password", 19,
+                Gender.FEMALE,
+                "22222");
+        assertThat(actual).isEqualTo(new CustomerDTOMapper().apply(customer));
+        verify(resultSet, never()).getString("password");
+    }
+
+    @Test
+    void forColumnsReadsOnlySelectedColumns() throws SQLException {
+        // Given
+        CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt("id")).thenReturn(1);
+        when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
+
+        // When
+        CustomerDTO actual = customerDTORowMapper
+                .forColumns(Set.of("id", "email"))
+                .mapRow(resultSet, 1);
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerDTO(
+                1, null, "jamila@gmail.com", null, null,
+                List.of("ROLE_USER"), "jamila@gmail.com", null));
+        verify(resultSet, never()).getString("name");
+        verify(resultSet, never()).getInt("age");
+    }
+}
@@ -0,0 +1,30 @@
+package com.architos.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerETagTest {
+
+    @Test
+    void ifNoneMatchUsesWeakComparisonAcrossTheList() {
+        // Given
+        String ifNoneMatch = "\"1\", W/\"3\"";
+
+        // When
+        // Then
+        assertThat(CustomerETag.matchesNoneMatch(ifNoneMatch, 3)).isTrue();
+        assertThat(CustomerETag.matchesNoneMatch(ifNoneMatch, 2)).isFalse();
+        assertThat(CustomerETag.matchesNoneMatch("*", 7)).isTrue();
+    }
+
+    @Test
+    void ifMatchAcceptsOnlyASingleStrongTag() {
+        // When
+        // Then
+        assertThat(CustomerETag.parseIfMatch(CustomerETag.of(5))).contains(5);
+        assertThat(CustomerETag.parseIfMatch("W/\"5\"")).isEmpty();
+        assertThat(CustomerETag.parseIfMatch("\"5\", \"6\"")).isEmpty();
+        assertThat(CustomerETag.parseIfMatch("\"abc\"")).isEmpty();
+    }
+}
@@ -0,0 +1,60 @@
+package com.architos.customer;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerEmailConstraintTest {
+
+    @Test
+    void recognisesHibernateViolationOfTheEmailConstraint() {
+        // Given
+        DataIntegrityViolationException e = new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate",
+                        new SQLException("duplicate", "23505"), "customer_email_unique"));
+
+        // When
+        // Then
+        assertThat(CustomerEmailConstraint.isViolatedBy(e)).isTrue();
+    }
+
+    @Test
+    void recognisesDriverViolationOfTheEmailConstraint() {
+        // Given
+        DuplicateKeyException e = new DuplicateKeyException("duplicate",
+                psqlException("23505", "customer_email_unique"));
+
+        // When
+        // Then
+        assertThat(CustomerEmailConstraint.isViolatedBy(e)).isTrue();
+    }
+
+    @Test
+    void ignoresOtherConstraints() {
+        // Given
+        DuplicateKeyException otherUnique = new DuplicateKeyException("duplicate",
+                psqlException("23505", "profile_image_id_unique"));
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("null",
+                new ConstraintViolationException("null",
+                        new SQLException("null", "23502"), "customer_email_unique"));
+
+        // When
+        // Then
+        assertThat(CustomerEmailConstraint.isViolatedBy(otherUnique)).isFalse();
+        assertThat(CustomerEmailConstraint.isViolatedBy(notNull)).isFalse();
+        assertThat(CustomerEmailConstraint.isViolatedBy(
+                new DataIntegrityViolationException("customer_email_unique"))).isFalse();
+    }
+
+    static PSQLException psqlException(String sqlState, String constraint) {
+        return new PSQLException(new ServerErrorMessage(
+                "SERROR\u0000C" + sqlState + "\u0000Mduplicate\u0000n" + constraint + "\u0000"));
+    }
+}
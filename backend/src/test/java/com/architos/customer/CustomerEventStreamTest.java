@@ -0,0 +1,85 @@
+package com.architos.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerEventStreamTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerEventStream underTest;
+
+    @BeforeEach
+    void setUp() {
+        CustomerEventStreamConfig config = new CustomerEventStreamConfig();
+        config.setBufferSize(2);
+        config.setHeartbeat(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerEventStream(config, meterRegistry);
+    }
+
+    @Test
+    void fansEventsOutToEverySubscriber() {
+        // Given
+        List<ServerSentEvent<CustomerChangedEvent>> first = new CopyOnWriteArrayList<>();
+        List<ServerSentEvent<CustomerChangedEvent>> second = new CopyOnWriteArrayList<>();
+        Disposable a = underTest.subscribe().subscribe(first::add);
+        Disposable b = underTest.subscribe().subscribe(second::add);
+        CustomerChangedEvent event = new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, 1);
+
+        // When
+        underTest.onCustomerChanged(event);
+
+        // Then
+        assertThat(first).singleElement().satisfies(sse -> {
+            assertThat(sse.event()).isEqualTo("updated");
+            assertThat(sse.data()).isEqualTo(event);
+        });
+        assertThat(second).hasSize(1);
+        assertThat(meterRegistry.get("customer_event_subscribers").gauge().value()).isEqualTo(2);
+        a.dispose();
+        b.dispose();
+        assertThat(meterRegistry.get("customer_event_subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void disconnectsSlowSubscriberWithoutAffectingOthers() {
+        // Given
+        AtomicBoolean slowCompleted = new AtomicBoolean();
+        underTest.subscribe().subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // never requests anything
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                slowCompleted.set(true);
+            }
+        });
+        List<ServerSentEvent<CustomerChangedEvent>> fast = new CopyOnWriteArrayList<>();
+        underTest.subscribe().subscribe(fast::add);
+
+        // When
+        for (int id = 1; id <= 3; id++) {
+            underTest.onCustomerChanged(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, id));
+        }
+
+        // Then
+        assertThat(slowCompleted).isTrue();
+        assertThat(fast).hasSize(3);
+        assertThat(meterRegistry.get("customer_event_slow_subscribers_dropped_total").counter().count())
+                .isEqualTo(1);
+    }
+}
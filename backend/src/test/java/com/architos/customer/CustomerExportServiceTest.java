@@ -0,0 +1,71 @@
+package com.architos.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExportServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CustomerExportService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerExportService(customerDao, objectMapper);
+    }
+
+    @Test
+    void canExportCustomersAsNewlineDelimitedJson() throws IOException {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(customerDao.streamAllCustomers())
+                .thenReturn(Stream.of(alex, jamila).map(customerDTOMapper).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exported = underTest.exportCustomers(outputStream);
+
+        // Then
+        assertThat(exported).isEqualTo(2);
+        assertThat(closed).isTrue();
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], CustomerDTO.class)).isEqualTo(customerDTOMapper.apply(alex));
+        assertThat(objectMapper.readValue(lines[1], CustomerDTO.class)).isEqualTo(customerDTOMapper.apply(jamila));
+        assertThat(lines[0]).doesNotContain("password");
+    }
+
+    @Test
+    void exportOfEmptyTableWritesNothing() throws IOException {
+        // Given
+        when(customerDao.streamAllCustomers()).thenReturn(Stream.empty());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exported = underTest.exportCustomers(outputStream);
+
+        // Then
+        assertThat(exported).isZero();
+        assertThat(outputStream.toByteArray()).isEmpty();
+    }
+}
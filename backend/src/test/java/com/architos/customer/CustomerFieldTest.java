@@ -0,0 +1,60 @@
+package com.architos.customer;
+
+import com.architos.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerFieldTest {
+
+    @Test
+    void parseReturnsAllFieldsWhenBlank() {
+        // When
+        Set<CustomerField> actual = CustomerField.parse(null);
+
+        // Then
+        assertThat(CustomerField.isAll(actual)).isTrue();
+        assertThat(CustomerField.isAll(CustomerField.parse(" "))).isTrue();
+    }
+
+    @Test
+    void parseAcceptsWhitelistedNames() {
+        // When
+        Set<CustomerField> actual = CustomerField.parse("name, profileImageId");
+
+        // Then
+        assertThat(actual).containsExactly(CustomerField.NAME, CustomerField.PROFILE_IMAGE_ID);
+        assertThat(CustomerField.isAll(actual)).isFalse();
+    }
+
+    @Test
+    void parseRejectsUnknownNames() {
+        // When
+        // Then
+        assertThatThrownBy(() -> CustomerField.parse("name,password"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageContaining("unknown field [password]");
+    }
+
+    @Test
+    void selectKeepsOnlyRequestedFields() {
+        // Given
+        CustomerDTO customer = new CustomerDTO(
+                1, "Jamila", "jamila@gmail.com", Gender.FEMALE, 19,
+                List.of("ROLE_USER"), "jamila@gmail.com", null);
+
+        // When
+        Map<String, Object> actual = CustomerField.select(
+                customer, CustomerField.parse("id,email"));
+
+        // Then
+        assertThat(actual).containsExactly(
+                Map.entry("id", 1),
+                Map.entry("email", "jamila@gmail.com"));
+    }
+}
@@ -0,0 +1,188 @@
+package com.architos.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CustomerEventStream customerEventStream;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CustomerInvalidationBus underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = newBus(true, true);
+    }
+
+    private CustomerInvalidationBus newBus(boolean invalidationEnabled, boolean relayEnabled) {
+        CustomerCacheConfig cacheConfig = new CustomerCacheConfig();
+        cacheConfig.getInvalidation().setEnabled(invalidationEnabled);
+        CustomerEventStreamConfig eventStreamConfig = new CustomerEventStreamConfig();
+        eventStreamConfig.getRelay().setEnabled(relayEnabled);
+        return new CustomerInvalidationBus(jdbcTemplate, new DataSourceProperties(), eventPublisher,
+                objectMapper, customerEventStream, cacheConfig, eventStreamConfig);
+    }
+
+    @Test
+    void localInvalidationIsPublishedWithPgNotify() throws Exception {
+        // When
+        underTest.publish(CustomerInvalidationEvent.local(1, "alex@gmail.com"));
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq(CustomerInvalidationBus.CHANNEL), payload.capture());
+
+        CustomerInvalidationBus.Notification notification =
+                objectMapper.readValue(payload.getValue(), CustomerInvalidationBus.Notification.class);
+        assertThat(notification.ids()).containsExactly(1);
+        assertThat(notification.emails()).containsExactly("alex@gmail.com");
+    }
+
+    @Test
+    void largeInvalidationsAreSplitAcrossNotifications() {
+        // Given
+        Set<String> emails = IntStream.range(0, CustomerInvalidationBus.MAX_KEYS_PER_NOTIFICATION * 2 + 1)
+                .mapToObj(i -> "customer" + i + "@gmail.com")
+                .collect(Collectors.toSet());
+        CustomerInvalidationEvent event = new CustomerInvalidationEvent(Set.of(), emails, false, false);
+
+        // When
+        List<CustomerInvalidationBus.Notification> notifications = underTest.split(event);
+        underTest.publish(event);
+
+        // Then
+        assertThat(notifications).hasSize(3);
+        assertThat(notifications).flatExtracting(CustomerInvalidationBus.Notification::emails)
+                .containsExactlyInAnyOrderElementsOf(emails);
+        verify(jdbcTemplate, times(3)).query(anyString(), any(RowCallbackHandler.class), any(), any());
+    }
+
+    @Test
+    void notificationFromAnotherNodeIsReplayedAsRemoteEvent() throws Exception {
+        // Given
+        String payload = objectMapper.writeValueAsString(
+                new CustomerInvalidationBus.Notification("other-node", Set.of(7), Set.of("jamila@gmail.com")));
+
+        // When
+        underTest.handle(payload);
+
+        // Then
+        verify(eventPublisher).publishEvent(
+                CustomerInvalidationEvent.remote(Set.of(7), Set.of("jamila@gmail.com")));
+    }
+
+    @Test
+    void notificationFromThisNodeIsIgnored() throws Exception {
+        // Given
+        underTest.publish(CustomerInvalidationEvent.local(1, null));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), payload.capture());
+
+        // When
+        underTest.handle(payload.getValue());
+
+        // Then
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void localChangeIsRelayedWithPgNotify() throws Exception {
+        // When
+        underTest.relay(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, 1));
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq(CustomerInvalidationBus.CHANGE_CHANNEL), payload.capture());
+
+        CustomerInvalidationBus.ChangeNotification notification =
+                objectMapper.readValue(payload.getValue(), CustomerInvalidationBus.ChangeNotification.class);
+        assertThat(notification.type()).isEqualTo(CustomerChangedEvent.Type.UPDATED);
+        assertThat(notification.id()).isEqualTo(1);
+    }
+
+    @Test
+    void changeFromAnotherNodeIsEmittedToLocalSubscribers() throws Exception {
+        // Given
+        String payload = objectMapper.writeValueAsString(new CustomerInvalidationBus.ChangeNotification(
+                "other-node", CustomerChangedEvent.Type.IMPORTED, null));
+
+        // When
+        underTest.handleChange(payload);
+
+        // Then
+        verify(customerEventStream).emit(new CustomerChangedEvent(CustomerChangedEvent.Type.IMPORTED, null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void changeFromThisNodeIsIgnored() {
+        // Given
+        underTest.relay(new CustomerChangedEvent(CustomerChangedEvent.Type.CREATED, 1));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), payload.capture());
+
+        // When
+        underTest.handleChange(payload.getValue());
+
+        // Then
+        verifyNoInteractions(customerEventStream);
+    }
+
+    @Test
+    void relayRunsWithoutCacheInvalidation() {
+        // Given
+        CustomerInvalidationBus bus = newBus(false, true);
+
+        // When
+        bus.publish(CustomerInvalidationEvent.local(1, null));
+        bus.relay(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, 1));
+
+        // Then
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                eq(CustomerInvalidationBus.CHANGE_CHANNEL), any());
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void relayCanBeSwitchedOffOnItsOwn() {
+        // Given
+        CustomerInvalidationBus bus = newBus(true, false);
+
+        // When
+        bus.relay(new CustomerChangedEvent(CustomerChangedEvent.Type.UPDATED, 1));
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
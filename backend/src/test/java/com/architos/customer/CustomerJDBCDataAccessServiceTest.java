@@ -5,8 +5,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Set;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -14,30 +16,127 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
     private CustomerJDBCDataAccessService underTest;
     private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private final CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
 
     @BeforeEach
     void setUp() {
         underTest = new CustomerJDBCDataAccessService(
                 getJdbcTemplate(),
-                customerRowMapper
+                customerRowMapper,
+                customerDTORowMapper
         );
     }
 
     @Test
-    void selectAllCustomers() {
+    void selectCustomersAfterSeeksPastCursorInIdOrder() {
         // Given
-        Customer customer = new Customer(
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    "password", 20,
+                    Gender.MALE));
+        }
+        List<CustomerDTO> firstPage = underTest.selectCustomersAfter(0, 2);
+        int lastSeenId = firstPage.get(firstPage.size() - 1).id();
+
+        // When
+        List<CustomerDTO> actual = underTest.selectCustomersAfter(lastSeenId, 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage).extracting(CustomerDTO::id).isSorted();
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).extracting(CustomerDTO::id)
+                .isSorted()
+                .allMatch(id -> id > lastSeenId);
+    }
+
+    @Test
+    void selectCustomersAfterReadsOnlyRequestedColumns() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
                 FAKER.name().fullName(),
-                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                email,
                 "password", 20,
-                Gender.MALE);
-        underTest.insertCustomer(customer);
+                Gender.MALE));
 
         // When
-        List<Customer> actual = underTest.selectAllCustomers();
+        List<CustomerDTO> actual = underTest.selectCustomersAfter(
+                0, 1000, Set.of(CustomerField.EMAIL));
 
         // Then
-        assertThat(actual).isNotEmpty();
+        assertThat(actual).extracting(CustomerDTO::email).contains(email);
+        assertThat(actual).allSatisfy(customer -> {
+            assertThat(customer.id()).isNotNull();
+            assertThat(customer.name()).isNull();
+            assertThat(customer.age()).isNull();
+            assertThat(customer.gender()).isNull();
+        });
+    }
+
+    @Test
+    void searchCustomersRanksPrefixMatchesFirst() {
+        // Given
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        underTest.insertCustomer(new Customer(
+                "Ali " + marker, "ali-" + UUID.randomUUID() + "@architos.com", "password", 20, Gender.MALE));
+        underTest.insertCustomer(new Customer(
+                marker + " Jamila", "jamila-" + UUID.randomUUID() + "@architos.com", "password", 20, Gender.FEMALE));
+
+        // When
+        List<CustomerDTO> actual = underTest.searchCustomers(marker, 10);
+
+        // Then
+        assertThat(actual).extracting(CustomerDTO::name)
+                .containsExactly(marker + " Jamila", "Ali " + marker);
+    }
+
+    @Test
+    void searchCustomersMatchesOnEmail() {
+        // Given
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        underTest.insertCustomer(new Customer(
+                "Ali", "ali-" + marker + "@architos.com", "password", 20, Gender.MALE));
+
+        // When
+        List<CustomerDTO> actual = underTest.searchCustomers(marker, 10);
+
+        // Then
+        assertThat(actual).extracting(CustomerDTO::email)
+                .containsExactly("ali-" + marker + "@architos.com");
+    }
+
+    @Test
+    void searchCustomersTreatsWildcardsLiterally() {
+        // When
+        List<CustomerDTO> actual = underTest.searchCustomers("%%%", 10);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void streamAllCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE));
+
+        // When
+        List<CustomerDTO> actual;
+        try (Stream<CustomerDTO> customers = underTest.streamAllCustomers()) {
+            actual = customers.toList();
+        }
+
+        // Then
+        assertThat(actual).extracting(CustomerDTO::id).isSorted();
+        assertThat(actual).extracting(CustomerDTO::email).contains(email);
+        assertThat(actual).allSatisfy(customer -> assertThat(customer.roles()).containsExactly("ROLE_USER"));
     }
 
     @Test
@@ -52,11 +151,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When
@@ -103,6 +199,109 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isTrue();
     }
 
+    @Test
+    void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+        Optional<Integer> first = underTest.insertCustomer(customer);
+
+        // When
+        Optional<Integer> second = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(second).isEmpty();
+    }
+
+    @Test
+    void selectCustomersByIdsReturnsOnlyExistingCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        int id = underTest.insertCustomer(
+                new Customer("foo", email, "password", 20, Gender.MALE)).orElseThrow();
+
+        // When
+        List<Customer> actual = underTest.selectCustomersByIds(List.of(id, -1));
+
+        // Then
+        assertThat(actual).extracting(Customer::getId).containsExactly(id);
+    }
+
+    @Test
+    void insertCustomersReportsDuplicatesInInputOrder() {
+        // Given
+        String existing = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String fresh = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer("foo", existing, "password", 20, Gender.MALE));
+
+        // When
+        List<Optional<Integer>> actual = underTest.insertCustomers(List.of(
+                new Customer("foo", fresh, "password", 20, Gender.MALE),
+                new Customer("foo", existing, "password", 20, Gender.MALE),
+                new Customer("foo", fresh, "password", 20, Gender.MALE)));
+
+        // Then
+        assertThat(actual).hasSize(3);
+        assertThat(actual.get(0)).isPresent();
+        assertThat(actual.get(1)).isEmpty();
+        assertThat(actual.get(2)).isEmpty();
+        assertThat(underTest.selectUserByEmail(fresh)).map(Customer::getId).isEqualTo(actual.get(0));
+    }
+
+    @Test
+    void patchCustomerUpdatesOnlyMaskedFieldsInOneStatement() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+        int id = underTest.insertCustomer(customer).orElseThrow();
+        CustomerUpdateRequest patch = new CustomerUpdateRequest("foo", null, 21);
+
+        // When
+        Optional<Customer> updated = underTest.patchCustomer(id, patch);
+        Optional<Customer> repeated = underTest.patchCustomer(id, patch);
+
+        // Then
+        assertThat(updated).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("foo");
+            assertThat(c.getAge()).isEqualTo(21);
+            assertThat(c.getEmail()).isEqualTo(email);
+        });
+        assertThat(repeated).isEmpty();
+        assertThat(underTest.patchCustomer(-1, patch)).isEmpty();
+    }
+
+    @Test
+    void patchCustomerBumpsVersionAndHonoursExpectedVersion() {
+        // Given
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                "password", 20,
+                Gender.MALE);
+        int id = underTest.insertCustomer(customer).orElseThrow();
+
+        // When
+        Optional<Customer> updated = underTest.patchCustomer(
+                id, new CustomerUpdateRequest("foo", null, null), 0);
+        Optional<Customer> stale = underTest.patchCustomer(
+                id, new CustomerUpdateRequest("bar", null, null), 0);
+
+        // Then
+        assertThat(updated).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1));
+        assertThat(stale).isEmpty();
+        assertThat(underTest.selectCustomerVersion(id)).contains(1);
+        assertThat(underTest.selectCustomerVersion(-1)).isEmpty();
+    }
+
     @Test
     void existsPersonWithEmailReturnsFalseWhenDoesNotExists() {
         // Given
@@ -127,11 +326,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When
@@ -165,11 +361,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When
@@ -192,11 +385,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         var newName = "foo";
@@ -231,11 +421,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         var newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();;
@@ -270,11 +457,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         var newAge = 100;
@@ -309,11 +493,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When update with new name, age and email
@@ -350,11 +531,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When update without no changes
@@ -386,11 +564,8 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
         underTest.insertCustomer(customer);
 
-        int id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
+        int id = underTest.selectUserByEmail(email)
                 .map(Customer::getId)
-                .findFirst()
                 .orElseThrow();
 
         // When
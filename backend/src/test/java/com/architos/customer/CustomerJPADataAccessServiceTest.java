@@ -1,18 +1,20 @@
 package com.architos.customer;
 
-import java.util.List;
+import java.sql.SQLException;
+import java.util.Optional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,19 +36,35 @@ class CustomerJPADataAccessServiceTest {
     }
 
     @Test
-    void selectAllCustomers() {
-        Page<Customer> page = mock(Page.class);
-        List<Customer> customers = List.of(new Customer());
-        when(page.getContent()).thenReturn(customers);
-        when(customerRepository.findAll(any(Pageable.class))).thenReturn(page);
+    void selectCustomersAfter() {
+        // Given
+        int afterId = 5;
+        int limit = 20;
+
+        // When
+        underTest.selectCustomersAfter(afterId, limit);
+
+        // Then
+        verify(customerRepository).findDTOsByIdGreaterThan(
+                afterId, PageRequest.of(0, limit));
+    }
+
+    @Test
+    void streamAllCustomers() {
         // When
-        List<Customer> expected = underTest.selectAllCustomers();
+        underTest.streamAllCustomers();
 
         // Then
-        assertThat(expected).isEqualTo(customers);
-        ArgumentCaptor<Pageable> pageArgumentCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(customerRepository).findAll(pageArgumentCaptor.capture());
-        assertThat(pageArgumentCaptor.getValue()).isEqualTo(Pageable.ofSize(1000));
+        verify(customerRepository).streamAllDTOs();
+    }
+
+    @Test
+    void searchCustomersEscapesLikeWildcards() {
+        // When
+        underTest.searchCustomers("50%_off", 10);
+
+        // Then
+        verify(customerRepository).search("50%_off", "%50\\%\\_off%", "50\\%\\_off%", 40, 10);
     }
 
     @Test
@@ -68,11 +86,48 @@ class CustomerJPADataAccessServiceTest {
                 1, "Ali", "ali@gmail.com", "password", 2,
                 Gender.MALE);
 
+        when(customerRepository.saveAndFlush(customer)).thenReturn(customer);
+
         // When
-        underTest.insertCustomer(customer);
+        Optional<Integer> actual = underTest.insertCustomer(customer);
 
         // Then
-        verify(customerRepository).save(customer);
+        assertThat(actual).contains(1);
+        verify(customerRepository).saveAndFlush(customer);
+    }
+
+    @Test
+    void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+        // Given
+        Customer customer = new Customer(
+                "Ali", "ali@gmail.com", "password", 2,
+                Gender.MALE);
+        when(customerRepository.saveAndFlush(customer))
+                .thenThrow(new DataIntegrityViolationException("duplicate",
+                        new ConstraintViolationException("duplicate",
+                                new SQLException("duplicate", "23505"), "customer_email_unique")));
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void insertCustomerRethrowsOtherIntegrityViolations() {
+        // Given
+        Customer customer = new Customer(
+                "Ali", "ali@gmail.com", "password", 2,
+                Gender.MALE);
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("null",
+                new ConstraintViolationException("null",
+                        new SQLException("null", "23502"), null));
+        when(customerRepository.saveAndFlush(customer)).thenThrow(notNull);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(customer)).isSameAs(notNull);
     }
 
     @Test
@@ -125,6 +180,25 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).save(customer);
     }
 
+    @Test
+    void patchCustomerSkipsCustomerAtOtherVersion() {
+        // Given
+        Customer customer = new Customer(
+                1, "Ali", "ali@gmail.com", "password", 2,
+                Gender.MALE);
+        customer.setVersion(3);
+        when(customerRepository.findForUpdateById(1)).thenReturn(Optional.of(customer));
+
+        // When
+        Optional<Customer> actual = underTest.patchCustomer(
+                1, new CustomerUpdateRequest("Alex", null, null), 2);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(customer.getName()).isEqualTo("Ali");
+        verify(customerRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void canUpdateProfileImageId() {
         // Given
@@ -0,0 +1,43 @@
+package com.architos.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerListDataAccessServiceTest {
+
+    private final CustomerListDataAccessService underTest = new CustomerListDataAccessService();
+
+    @Test
+    void insertCustomerAssignsANewId() {
+        // Given
+        String email = "alex-" + UUID.randomUUID() + "@gmail.com";
+        Customer customer = new Customer("Alex", email, "password", 19, Gender.MALE);
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isPresent();
+        assertThat(underTest.selectCustomerById(actual.get()))
+                .map(Customer::getEmail)
+                .contains(email);
+    }
+
+    @Test
+    void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+        // Given
+        String email = "alex-" + UUID.randomUUID() + "@gmail.com";
+        underTest.insertCustomer(new Customer("Alex", email, "password", 19, Gender.MALE));
+
+        // When
+        Optional<Integer> actual = underTest.insertCustomer(
+                new Customer("Alexandro", email, "password", 20, Gender.MALE));
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+}
@@ -1,25 +1,46 @@
 package com.architos.customer;
 
 import com.architos.exception.DuplicateResourceException;
+import com.architos.exception.InvalidFileTypeException;
+import com.architos.exception.PreconditionFailedException;
 import com.architos.exception.RequestValidationException;
 import com.architos.exception.ResourceNotFoundException;
 import com.architos.exception.S3ServiceException;
 import com.architos.file.FileValidationService;
 import com.architos.metrics.FileUploadMetricsService;
+import com.architos.s3.ByteRange;
+import com.architos.s3.PresignedUpload;
+import com.architos.s3.PresignedUrl;
 import com.architos.s3.S3Buckets;
 import com.architos.s3.S3Service;
+import com.architos.s3.S3UrlSigner;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -37,25 +58,112 @@ class CustomerServiceTest {
     @Mock
     private S3Buckets s3Buckets;
     @Mock
+    private S3UrlSigner s3UrlSigner;
+    private final ProfileImageConfig profileImageConfig = new ProfileImageConfig();
+    @Mock
     private FileValidationService fileValidationService;
     @Mock
     private FileUploadMetricsService metricsService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     private CustomerService underTest;
     private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
 
     @BeforeEach
     void setUp() {
         underTest = new CustomerService(customerDao, customerDTOMapper, passwordEncoder, s3Service, s3Buckets,
-                fileValidationService, metricsService);
+                s3UrlSigner, profileImageConfig, fileValidationService, metricsService, eventPublisher);
+    }
+
+    @Test
+    void canGetFirstPageOfCustomers() {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        Customer ali = new Customer(3, "Ali", "ali@gmail.com", "password", 25, Gender.MALE);
+        when(customerDao.selectCustomersAfter(0, 3)).thenReturn(Stream.of(alex, jamila, ali)
+                .map(customerDTOMapper)
+                .toList());
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+
+        // Then
+        assertThat(actual.customers())
+                .containsExactly(customerDTOMapper.apply(alex), customerDTOMapper.apply(jamila));
+        assertThat(actual.nextCursor()).isEqualTo(CustomerCursor.encode(2));
+    }
+
+    @Test
+    void canGetNextPageOfCustomersFromCursor() {
+        // Given
+        Customer ali = new Customer(3, "Ali", "ali@gmail.com", "password", 25, Gender.MALE);
+        when(customerDao.selectCustomersAfter(2, 3)).thenReturn(List.of(customerDTOMapper.apply(ali)));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(CustomerCursor.encode(2), 2);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(customerDTOMapper.apply(ali));
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void canGetPageOfCustomersWithSelectedFields() {
+        // Given
+        Set<CustomerField> fields = CustomerField.parse("id,name");
+        CustomerDTO ali = new CustomerDTO(3, "Ali", null, null, null, List.of("ROLE_USER"), null, null);
+        when(customerDao.selectCustomersAfter(0, 3, fields)).thenReturn(List.of(ali));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2, fields);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(ali);
+        verify(customerDao, never()).selectCustomersAfter(anyInt(), anyInt());
+    }
+
+    @Test
+    void searchCustomersTrimsTermAndAppliesDefaultLimit() {
+        // When
+        underTest.searchCustomers("  jam ", null);
+
+        // Then
+        verify(customerDao).searchCustomers("jam", CustomerService.DEFAULT_SEARCH_SIZE);
+    }
+
+    @Test
+    void willThrowWhenSearchTermIsTooShortOrLimitOutOfRange() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.searchCustomers("ja", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("search query must have at least 3 characters");
+        assertThatThrownBy(() -> underTest.searchCustomers("jamila", CustomerService.MAX_SEARCH_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class);
+        verify(customerDao, never()).searchCustomers(any(), anyInt());
     }
 
     @Test
-    void getAllCustomers() {
+    void willThrowWhenPageLimitIsOutOfRange() {
         // When
-        underTest.getAllCustomers();
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
 
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenCursorIsMalformed() {
+        // When
         // Then
-        verify(customerDao).selectAllCustomers();
+        assertThatThrownBy(() -> underTest.getCustomers("not-a-cursor", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid cursor [not-a-cursor]");
+
+        verifyNoInteractions(customerDao);
     }
 
     @Test
@@ -87,24 +195,51 @@ class CustomerServiceTest {
                 .hasMessage("customer with id [%s] not found".formatted(id));
     }
 
+    @Test
+    void getCustomersByIdsKeepsRequestOrderAndListsMissingIds() {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        when(customerDao.selectCustomersByIds(any())).thenReturn(List.of(alex, jamila));
+
+        // When
+        CustomerLookup actual = underTest.getCustomersByIds(List.of(2, 3, 1, 2));
+
+        // Then
+        assertThat(actual.customers())
+                .containsExactly(customerDTOMapper.apply(jamila), customerDTOMapper.apply(alex));
+        assertThat(actual.missingIds()).containsExactly(3);
+    }
+
+    @Test
+    void willThrowWhenNoIdsAreRequested() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomersByIds(List.of()))
+                .isInstanceOf(RequestValidationException.class);
+        verify(customerDao, never()).selectCustomersByIds(any());
+    }
+
     @Test
     void addCustomer() {
         // Given
         String email = "alex@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(false);
-
         CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", email, "password", 19,
                 Gender.MALE);
 
         String passwordHash = "¢5554ml;f;lsd";
 
         when(passwordEncoder.encode(request.password())).thenReturn(passwordHash);
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.of(7));
 
         // When
-        underTest.addCustomer(request);
+        Integer customerId = underTest.addCustomer(request);
 
         // Then
+        assertThat(customerId).isEqualTo(7);
+        verify(customerDao, never()).existsCustomerWithEmail(any());
+
         ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
 
         verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
@@ -123,7 +258,7 @@ class CustomerServiceTest {
         // Given
         String email = "alex@gmail.com";
 
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
+        when(customerDao.insertCustomer(any())).thenReturn(Optional.empty());
 
         CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", email, "password", 19,
                 Gender.MALE);
@@ -133,7 +268,7 @@ class CustomerServiceTest {
                 .hasMessage("email already taken");
 
         // Then
-        verify(customerDao, never()).insertCustomer(any());
+        verify(customerDao).insertCustomer(any());
     }
 
     @Test
@@ -147,6 +282,8 @@ class CustomerServiceTest {
         underTest.deleteCustomerById(id);
         // Then
         verify(customerDao).deleteCustomerById(id);
+        verify(eventPublisher).publishEvent(
+                new CustomerChangedEvent(CustomerChangedEvent.Type.DELETED, id));
     }
 
     @Test
@@ -162,149 +299,168 @@ class CustomerServiceTest {
 
         // Then
         verify(customerDao, never()).deleteCustomerById(id);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void canUpdateAllCustomersProperties() {
         // Given
         int id = 10;
-        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@architos.com";
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexandro", newEmail, 23);
-
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
+        Customer updated = new Customer(id, "Alexandro", newEmail, "password", 23, Gender.MALE);
+        when(customerDao.patchCustomer(id, updateRequest, null)).thenReturn(Optional.of(updated));
 
         // When
-        underTest.updateCustomer(id, updateRequest);
+        CustomerDTO actual = underTest.updateCustomer(id, updateRequest);
 
         // Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
-
-        assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
+        assertThat(actual.name()).isEqualTo(updateRequest.name());
+        assertThat(actual.email()).isEqualTo(updateRequest.email());
+        assertThat(actual.age()).isEqualTo(updateRequest.age());
+        verify(customerDao, never()).selectCustomerById(any());
+        verify(customerDao, never()).existsCustomerWithEmail(any());
     }
 
     @Test
     void canUpdateOnlyCustomerName() {
         // Given
         int id = 10;
-        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexandro", null, null);
+        Customer updated = new Customer(id, "Alexandro", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.patchCustomer(id, updateRequest, null)).thenReturn(Optional.of(updated));
 
         // When
-        underTest.updateCustomer(id, updateRequest);
+        CustomerDTO actual = underTest.updateCustomer(id, updateRequest);
 
         // Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
-
-        assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+        assertThat(actual.name()).isEqualTo(updateRequest.name());
+        assertThat(actual.email()).isEqualTo(updated.getEmail());
+        assertThat(actual.age()).isEqualTo(updated.getAge());
     }
 
     @Test
-    void canUpdateOnlyCustomerEmail() {
+    void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
         // Given
         int id = 10;
-        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@architos.com";
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, newEmail, null);
-
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.patchCustomer(id, updateRequest, null))
+                .thenThrow(new DuplicateKeyException("duplicate",
+                        CustomerEmailConstraintTest.psqlException("23505", "customer_email_unique")));
 
         // When
-        underTest.updateCustomer(id, updateRequest);
-
         // Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(DuplicateResourceException.class).hasMessage("email already taken");
+    }
 
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
+    @Test
+    void willRethrowOtherIntegrityViolationsOnUpdate() {
+        // Given
+        int id = 10;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alex", null, -1);
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("check",
+                CustomerEmailConstraintTest.psqlException("23514", "customer_age_check"));
+        when(customerDao.patchCustomer(id, updateRequest, null)).thenThrow(violation);
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(newEmail);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest)).isSameAs(violation);
     }
 
     @Test
-    void canUpdateOnlyCustomerAge() {
+    void willThrowWhenCustomerUpdateHasNoChanges() {
         // Given
         int id = 10;
-        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
-        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, null, 22);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alex", "alex@gmail.com", 19);
+        when(customerDao.patchCustomer(id, updateRequest, null)).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(0));
 
         // When
-        underTest.updateCustomer(id, updateRequest);
-
         // Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(RequestValidationException.class).hasMessage("no data changes found");
+    }
 
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
+    @Test
+    void willThrowWhenCustomerUpdateHasNoFields() {
+        // Given
+        int id = 10;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, null, null);
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+        // When
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(RequestValidationException.class).hasMessage("no data changes found");
+
+        // Then
+        verify(customerDao, never()).patchCustomer(any(), any(), any());
     }
 
     @Test
-    void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
+    void canUpdateCustomerAtExpectedVersion() {
         // Given
         int id = 10;
-        Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexandro", null, null);
+        Customer updated = new Customer(id, "Alexandro", "alex@gmail.com", "password", 19, Gender.MALE);
+        updated.setVersion(4);
+        when(customerDao.patchCustomer(id, updateRequest, 3)).thenReturn(Optional.of(updated));
 
-        String newEmail = "alexandro@architos.com";
+        // When
+        VersionedCustomer actual = underTest.updateCustomer(id, updateRequest, 3);
 
-        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, newEmail, null);
+        // Then
+        assertThat(actual.version()).isEqualTo(4);
+        assertThat(actual.customer().name()).isEqualTo("Alexandro");
+    }
 
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(true);
+    @Test
+    void willThrowWhenCustomerMovedPastExpectedVersion() {
+        // Given
+        int id = 10;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexandro", null, null);
+        when(customerDao.patchCustomer(id, updateRequest, 3)).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(5));
 
         // When
-        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
-                .isInstanceOf(DuplicateResourceException.class).hasMessage("email already taken");
-
         // Then
-        verify(customerDao, never()).updateCustomer(any());
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, 3))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("customer with id [10] was modified, current version is 5");
     }
 
     @Test
-    void willThrowWhenCustomerUpdateHasNoChanges() {
+    void canGetVersionedCustomer() {
         // Given
         int id = 10;
         Customer customer = new Customer(id, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        customer.setVersion(2);
         when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
 
-        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(customer.getName(), customer.getEmail(),
-                customer.getAge());
-
         // When
-        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
-                .isInstanceOf(RequestValidationException.class).hasMessage("no data changes found");
+        VersionedCustomer actual = underTest.getVersionedCustomer(id);
 
         // Then
-        verify(customerDao, never()).updateCustomer(any());
+        assertThat(actual).isEqualTo(new VersionedCustomer(customerDTOMapper.apply(customer), 2));
     }
 
     @Test
-    void canUploadProfileImage() {
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        // Given
+        int id = 10;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexandro", null, null);
+        when(customerDao.patchCustomer(id, updateRequest, null)).thenReturn(Optional.empty());
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
+    @Test
+    void canUploadProfileImage() throws IOException {
         // Given
         int customerId = 10;
 
@@ -325,8 +481,13 @@ class CustomerServiceTest {
 
         verify(customerDao).updateCustomerProfileImageId(profileImageIdArgumentCaptor.capture(), eq(customerId));
 
-        verify(s3Service).putObject(bucket,
-                "profile-images/%s/%s".formatted(customerId, profileImageIdArgumentCaptor.getValue()), bytes);
+        ArgumentCaptor<InputStream> inputStreamArgumentCaptor = ArgumentCaptor.forClass(InputStream.class);
+        verify(s3Service).putObject(eq(bucket),
+                eq("profile-images/%s/%s".formatted(customerId, profileImageIdArgumentCaptor.getValue())),
+                inputStreamArgumentCaptor.capture(),
+                eq((long) bytes.length),
+                isNull());
+        assertThat(inputStreamArgumentCaptor.getValue().readAllBytes()).isEqualTo(bytes);
     }
 
     @Test
@@ -357,10 +518,7 @@ class CustomerServiceTest {
         when(customerDao.existsCustomerById(customerId)).thenReturn(true);
 
         MultipartFile multipartFile = mock(MultipartFile.class);
-        when(multipartFile.getBytes()).thenThrow(IOException.class);
-
-        String bucket = "customer-bucket";
-        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(multipartFile.getInputStream()).thenThrow(IOException.class);
 
         // When
         assertThatThrownBy(() -> {
@@ -374,34 +532,250 @@ class CustomerServiceTest {
     }
 
     @Test
-    void canDownloadProfileImage() {
+    void canOpenProfileImageStream() {
         // Given
         int customerId = 10;
         String profileImageId = "2222";
         Customer customer = new Customer(
-                customerId,
-                "Alex",
-                "alex@gmail.com",
-                "password",
-                19,
-                Gender.MALE,
-                profileImageId);
+                customerId, "Alex", "alex@gmail.com", "password", 19, Gender.MALE, profileImageId);
+        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        ResponseInputStream<GetObjectResponse> object = new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength(5L).contentType("image/png").build(),
+                new ByteArrayInputStream("image".getBytes()));
+        when(s3Service.getObjectStream(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                null)).thenReturn(object);
+
+        // When
+        ProfileImage actual = underTest.openCustomerProfileImage(customerId);
+
+        // Then
+        assertThat(actual.content()).isSameAs(object);
+        assertThat(actual.contentLength()).isEqualTo(5L);
+        assertThat(actual.contentType()).isEqualTo("image/png");
+        assertThat(actual.isPartial()).isFalse();
+        verify(s3Service, never()).getObject(any(), any());
+    }
+
+    @Test
+    void canInitiateProfileImageUpload() throws Exception {
+        // Given
+        int customerId = 10;
+        when(customerDao.existsCustomerById(customerId)).thenReturn(true);
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        PresignedUpload presigned = new PresignedUpload(
+                new URL("https://customer-bucket.s3.amazonaws.com/upload"),
+                Instant.now(),
+                Map.of("content-type", "image/png", "content-length", "2048"));
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        when(s3UrlSigner.presignPutObject(
+                eq(bucket), keyCaptor.capture(), eq("image/png"), eq(2048L),
+                eq(profileImageConfig.getUploadUrlTtl()))).thenReturn(presigned);
+
+        // When
+        ProfileImageUpload actual = underTest.initiateProfileImageUpload(
+                customerId, new ProfileImageUploadRequest("image/png", 2048L));
+
+        // Then
+        verify(fileValidationService).validateImage("image/png", 2048L);
+        assertThat(keyCaptor.getValue()).isEqualTo("profile-images/%s/%s".formatted(customerId, actual.uploadId()));
+        assertThat(actual.url()).isEqualTo(presigned.url());
+        assertThat(actual.headers()).isEqualTo(presigned.headers());
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void willNotPresignUploadThatFailsValidation() {
+        // Given
+        int customerId = 10;
+        when(customerDao.existsCustomerById(customerId)).thenReturn(true);
+        doThrow(new InvalidFileTypeException("Invalid file type: text/plain"))
+                .when(fileValidationService).validateImage("text/plain", 10L);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.initiateProfileImageUpload(
+                customerId, new ProfileImageUploadRequest("text/plain", 10L)))
+                .isInstanceOf(InvalidFileTypeException.class);
+        verify(metricsService).recordValidationFailure("file_type", "Invalid file type: text/plain");
+        verifyNoInteractions(s3UrlSigner);
+    }
+
+    @Test
+    void canCompleteProfileImageUpload() {
+        // Given
+        int customerId = 10;
+        String uploadId = UUID.randomUUID().toString();
+        when(customerDao.existsCustomerById(customerId)).thenReturn(true);
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.headObject(bucket, "profile-images/%s/%s".formatted(customerId, uploadId)))
+                .thenReturn(Optional.of(HeadObjectResponse.builder()
+                        .contentLength(2048L)
+                        .contentType("image/png")
+                        .build()));
+
+        // When
+        underTest.completeProfileImageUpload(customerId, uploadId);
+
+        // Then
+        verify(fileValidationService).validateImage("image/png", 2048L);
+        verify(customerDao).updateCustomerProfileImageId(uploadId, customerId);
+        verify(eventPublisher).publishEvent(
+                new CustomerChangedEvent(CustomerChangedEvent.Type.PROFILE_IMAGE_UPDATED, customerId));
+    }
+
+    @Test
+    void willNotCompleteUploadThatIsNotInS3() {
+        // Given
+        int customerId = 10;
+        String uploadId = UUID.randomUUID().toString();
+        when(customerDao.existsCustomerById(customerId)).thenReturn(true);
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+        when(s3Service.headObject(bucket, "profile-images/%s/%s".formatted(customerId, uploadId)))
+                .thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.completeProfileImageUpload(customerId, uploadId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("profile image upload [%s] not found for customer with id [%s]"
+                        .formatted(uploadId, customerId));
+        verify(customerDao, never()).updateCustomerProfileImageId(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void willRejectUploadIdThatIsNotOurs() {
+        // Given
+        int customerId = 10;
+        when(customerDao.existsCustomerById(customerId)).thenReturn(true);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.completeProfileImageUpload(customerId, "../11/abc"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid upload id [../11/abc]");
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void canGetProfileImageUrl() throws Exception {
+        // Given
+        int customerId = 10;
+        String profileImageId = "2222";
+        Customer customer = new Customer(
+                customerId, "Alex", "alex@gmail.com", "password", 19, Gender.MALE, profileImageId);
         when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
 
         String bucket = "customer-bucket";
         when(s3Buckets.getCustomer()).thenReturn(bucket);
 
-        byte[] expectedImage = "image".getBytes();
+        PresignedUrl url = new PresignedUrl(
+                new URL("https://customer-bucket.s3.amazonaws.com/profile-images/10/2222"), Instant.now());
+        when(s3UrlSigner.presignGetObject(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                profileImageConfig.getUrlTtl())).thenReturn(url);
+
+        // When
+        PresignedUrl actual = underTest.getCustomerProfileImageUrl(customerId);
+
+        // Then
+        assertThat(actual).isSameAs(url);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void willThrowWhenProfileImageUrlRequestedWithoutImage() {
+        // Given
+        int customerId = 10;
+        Customer customer = new Customer(
+                customerId, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomerProfileImageUrl(customerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] profile image not found".formatted(customerId));
+        verifyNoInteractions(s3UrlSigner);
+    }
+
+    @Test
+    void canOpenProfileImageRange() {
+        // Given
+        int customerId = 10;
+        String profileImageId = "2222";
+        Customer customer = new Customer(
+                customerId, "Alex", "alex@gmail.com", "password", 19, Gender.MALE, profileImageId);
+        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
+
+        ByteRange range = new ByteRange(1L, 3L);
+        ResponseInputStream<GetObjectResponse> object = new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength(3L)
+                        .contentRange("bytes 1-3/5")
+                        .contentType("image/png")
+                        .build(),
+                new ByteArrayInputStream("mag".getBytes()));
+        when(s3Service.getObjectStream(
+                bucket,
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                range)).thenReturn(object);
+
+        // When
+        ProfileImage actual = underTest.openCustomerProfileImage(customerId, range, "\"2222\"");
+
+        // Then
+        assertThat(actual.isPartial()).isTrue();
+        assertThat(actual.contentRange()).isEqualTo("bytes 1-3/5");
+        assertThat(actual.contentLength()).isEqualTo(3L);
+        assertThat(actual.eTag()).isEqualTo("\"2222\"");
+    }
+
+    @Test
+    void openProfileImageIgnoresRangeWhenIfRangeDoesNotMatch() {
+        // Given
+        int customerId = 10;
+        String profileImageId = "3333";
+        Customer customer = new Customer(
+                customerId, "Alex", "alex@gmail.com", "password", 19, Gender.MALE, profileImageId);
+        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+
+        String bucket = "customer-bucket";
+        when(s3Buckets.getCustomer()).thenReturn(bucket);
 
-        when(s3Service.getObject(
+        ResponseInputStream<GetObjectResponse> object = new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength(5L)
+                        .contentType("image/png")
+                        .build(),
+                new ByteArrayInputStream("image".getBytes()));
+        when(s3Service.getObjectStream(
                 bucket,
-                "profile-images/%s/%s".formatted(customerId, profileImageId))).thenReturn(expectedImage);
+                "profile-images/%s/%s".formatted(customerId, profileImageId),
+                null)).thenReturn(object);
 
         // When
-        byte[] actualImage = underTest.getCustomerProfileImage(customerId);
+        ProfileImage actual = underTest.openCustomerProfileImage(
+                customerId, new ByteRange(1L, 3L), "\"2222\"");
 
         // Then
-        assertThat(actualImage).isEqualTo(expectedImage);
+        assertThat(actual.isPartial()).isFalse();
+        assertThat(actual.contentLength()).isEqualTo(5L);
+        assertThat(actual.eTag()).isEqualTo("\"3333\"");
     }
 
     @Test
@@ -420,7 +794,7 @@ class CustomerServiceTest {
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
+        assertThatThrownBy(() -> underTest.openCustomerProfileImage(customerId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] profile image not found".formatted(customerId));
 
@@ -437,7 +811,7 @@ class CustomerServiceTest {
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
+        assertThatThrownBy(() -> underTest.openCustomerProfileImage(customerId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] not found".formatted(customerId));
 
@@ -0,0 +1,122 @@
+package com.architos.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerUserDetailsServiceTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private MeterRegistry meterRegistry;
+    private CustomerUserDetailsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerUserDetailsService(customerDao, new CustomerCacheConfig(), meterRegistry);
+    }
+
+    @Test
+    void loadUserByUsernameIsServedFromCacheAfterFirstLoad() {
+        // Given
+        String email = "alex@gmail.com";
+        Customer customer = new Customer(1, "Alex", email, "password", 19, Gender.MALE);
+        when(customerDao.selectUserByEmail(email)).thenReturn(Optional.of(customer));
+
+        // When
+        UserDetails first = underTest.loadUserByUsername(email);
+        UserDetails second = underTest.loadUserByUsername(email);
+
+        // Then
+        assertThat(first).isEqualTo(customer);
+        assertThat(second).isEqualTo(customer);
+        verify(customerDao, times(1)).selectUserByEmail(email);
+        assertThat(meterRegistry.get("user_details_cache_hit_ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("user_details_load_duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationByIdEvictsEntryUnderPreviousEmail() {
+        // Given
+        String email = "alex@gmail.com";
+        Customer customer = new Customer(1, "Alex", email, "password", 19, Gender.MALE);
+        when(customerDao.selectUserByEmail(email)).thenReturn(Optional.of(customer));
+        underTest.loadUserByUsername(email);
+
+        // When
+        underTest.onCustomerInvalidation(CustomerInvalidationEvent.local(1, "alex.new@gmail.com"));
+        underTest.loadUserByUsername(email);
+
+        // Then
+        verify(customerDao, times(2)).selectUserByEmail(email);
+    }
+
+    @Test
+    void loadUserByUsernameReturnsACopyOfTheCachedCustomer() {
+        // Given
+        String email = "alex@gmail.com";
+        Customer customer = new Customer(1, "Alex", email, "password", 19, Gender.MALE);
+        when(customerDao.selectUserByEmail(email)).thenReturn(Optional.of(customer));
+        Customer first = (Customer) underTest.loadUserByUsername(email);
+
+        // When
+        first.setName("Tampered");
+        UserDetails second = underTest.loadUserByUsername(email);
+
+        // Then
+        assertThat(first).isNotSameAs(customer);
+        assertThat(((Customer) second).getName()).isEqualTo("Alex");
+    }
+
+    @Test
+    void invalidationByIdLeavesOtherCustomersCached() {
+        // Given
+        Customer alex = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        Customer jamila = new Customer(2, "Jamila", "jamila@gmail.com", "password", 21, Gender.FEMALE);
+        when(customerDao.selectUserByEmail(alex.getEmail())).thenReturn(Optional.of(alex));
+        when(customerDao.selectUserByEmail(jamila.getEmail())).thenReturn(Optional.of(jamila));
+        underTest.loadUserByUsername(alex.getEmail());
+        underTest.loadUserByUsername(jamila.getEmail());
+
+        // When
+        underTest.onCustomerInvalidation(CustomerInvalidationEvent.local(1, null));
+        underTest.loadUserByUsername(alex.getEmail());
+        underTest.loadUserByUsername(jamila.getEmail());
+
+        // Then
+        verify(customerDao, times(2)).selectUserByEmail(alex.getEmail());
+        verify(customerDao, times(1)).selectUserByEmail(jamila.getEmail());
+    }
+
+    @Test
+    void missingUserIsNotCached() {
+        // Given
+        String email = "alex@gmail.com";
+        when(customerDao.selectUserByEmail(email)).thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.loadUserByUsername(email))
+                .isInstanceOf(UsernameNotFoundException.class)
+                .hasMessage("Username " + email + " not found");
+        assertThatThrownBy(() -> underTest.loadUserByUsername(email))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(customerDao, times(2)).selectUserByEmail(email);
+    }
+}
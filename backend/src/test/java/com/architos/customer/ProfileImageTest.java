@@ -0,0 +1,19 @@
+package com.architos.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageTest {
+
+    @Test
+    void ifRangeMatchesOnlyTheCurrentStrongTag() {
+        // When
+        // Then
+        assertThat(ProfileImage.matchesIfRange(null, "2222")).isTrue();
+        assertThat(ProfileImage.matchesIfRange("\"2222\"", "2222")).isTrue();
+        assertThat(ProfileImage.matchesIfRange("\"1111\"", "2222")).isFalse();
+        assertThat(ProfileImage.matchesIfRange("W/\"2222\"", "2222")).isFalse();
+        assertThat(ProfileImage.matchesIfRange("Wed, 21 Oct 2015 07:28:00 GMT", "2222")).isFalse();
+    }
+}
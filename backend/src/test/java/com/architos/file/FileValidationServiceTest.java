@@ -166,4 +166,21 @@ class FileValidationServiceTest {
         assertThat(underTest.isValidFileSize(1024)).isTrue();
         assertThat(underTest.isValidFileSize(2048)).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldValidateDeclaredImage() {
+        // When & Then - should not throw any exception
+        underTest.validateImage("image/png", 2048);
+    }
+
+    @Test
+    void shouldRejectDeclaredImageThatIsEmptyTooLargeOrNotAnImage() {
+        assertThatThrownBy(() -> underTest.validateImage("image/png", 0))
+                .isInstanceOf(InvalidFileTypeException.class)
+                .hasMessage("File cannot be empty");
+        assertThatThrownBy(() -> underTest.validateImage("text/plain", 2048))
+                .isInstanceOf(InvalidFileTypeException.class);
+        assertThatThrownBy(() -> underTest.validateImage("image/png", 11 * 1024 * 1024))
+                .isInstanceOf(FileSizeExceededException.class);
+    }
+}
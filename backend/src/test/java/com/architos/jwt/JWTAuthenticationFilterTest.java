@@ -0,0 +1,213 @@
+package com.architos.jwt;
+
+import com.architos.customer.Customer;
+import com.architos.customer.CustomerUserDetailsService;
+import com.architos.customer.Gender;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JWTAuthenticationFilterTest {
+
+    @Mock
+    private CustomerUserDetailsService userDetailsService;
+    @Mock
+    private TokenVersionService tokenVersionService;
+    @Mock
+    private FilterChain filterChain;
+    private final JWTUtil jwtUtil = new JWTUtil();
+    private final JWTConfig jwtConfig = new JWTConfig();
+    private JWTAuthenticationFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        jwtConfig.setStateless(true);
+        underTest = new JWTAuthenticationFilter(
+                jwtUtil, userDetailsService, jwtConfig, tokenVersionService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeAuthenticatesFromClaimsWithoutLoadingUser() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER"));
+        MockHttpServletRequest request = requestWith(token);
+        when(tokenVersionService.isCurrent(any())).thenReturn(true);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("alex@gmail.com");
+        assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void statelessModeRejectsRevokedToken() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER"));
+        MockHttpServletRequest request = requestWith(token);
+        when(tokenVersionService.isCurrent(any())).thenReturn(false);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void databaseModeRejectsRevokedToken() throws Exception {
+        // Given
+        jwtConfig.setStateless(false);
+        String token = jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER"));
+        MockHttpServletRequest request = requestWith(token);
+        when(tokenVersionService.isCurrent(any())).thenReturn(false);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void databaseModeAuthenticatesCurrentTokenFromStoredUser() throws Exception {
+        // Given
+        jwtConfig.setStateless(false);
+        String token = jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER"));
+        MockHttpServletRequest request = requestWith(token);
+        Customer customer = new Customer(1, "Alex", "alex@gmail.com", "password", 19, Gender.MALE);
+        when(tokenVersionService.isCurrent(any())).thenReturn(true);
+        when(userDetailsService.loadUserByUsername("alex@gmail.com")).thenReturn(customer);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo(customer);
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void eventStreamAcceptsTicketFromQueryString() throws Exception {
+        // Given
+        MockHttpServletRequest request = eventStreamRequest(ticket());
+        when(tokenVersionService.isCurrent(any())).thenReturn(true);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("alex@gmail.com");
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void ticketIsNotAcceptedAsBearerToken() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWith(ticket());
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService, tokenVersionService);
+    }
+
+    @Test
+    void bearerTokenIsNotAcceptedAsTicket() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER"));
+        MockHttpServletRequest request = eventStreamRequest(token);
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService, tokenVersionService);
+    }
+
+    @Test
+    void ticketIsIgnoredOutsideTheEventStream() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.setServletPath("/api/v1/customers");
+        request.setParameter(JWTAuthenticationFilter.TICKET_PARAMETER, ticket());
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService, tokenVersionService);
+    }
+
+    @Test
+    void invalidTokenLeavesRequestUnauthenticated() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWith("invalid-token");
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService, tokenVersionService);
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    private String ticket() {
+        VerifiedToken token = jwtUtil.verify(jwtUtil.issueToken("alex@gmail.com", 1, 0, List.of("ROLE_USER")));
+        return jwtUtil.issueTicket(token, JWTUtil.EVENT_STREAM_PURPOSE, Instant.now().plusSeconds(30));
+    }
+
+    private static MockHttpServletRequest eventStreamRequest(String ticket) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/events");
+        request.setServletPath("/api/v1/customers/events");
+        request.setParameter(JWTAuthenticationFilter.TICKET_PARAMETER, ticket);
+        return request;
+    }
+
+    private static MockHttpServletRequest requestWith(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,66 @@
+package com.architos.jwt;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTUtilTest {
+
+    private final JWTUtil underTest = new JWTUtil();
+
+    @Test
+    void verifyReturnsClaimsOfIssuedToken() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com", "ROLE_USER");
+
+        // When
+        VerifiedToken verified = underTest.verify(token);
+
+        // Then
+        assertThat(verified.subject()).isEqualTo("alex@gmail.com");
+        assertThat(verified.isExpired()).isFalse();
+        assertThat(verified.isValidFor("alex@gmail.com")).isTrue();
+        assertThat(verified.isValidFor("jamila@gmail.com")).isFalse();
+        assertThat(underTest.isTokenValid(token, "alex@gmail.com")).isTrue();
+    }
+
+    @Test
+    void verifyRejectsTamperedToken() {
+        // Given
+        String token = underTest.issueToken("alex@gmail.com");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(tampered))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> underTest.verify("invalid-token"))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void ticketCarriesTheIdentityOfTheTokenItWasIssuedFor() {
+        // Given
+        VerifiedToken token = underTest.verify(
+                underTest.issueToken("alex@gmail.com", 1, 3, List.of("ROLE_USER")));
+        Instant expiresAt = Instant.now().plusSeconds(30);
+
+        // When
+        VerifiedToken ticket = underTest.verify(
+                underTest.issueTicket(token, JWTUtil.EVENT_STREAM_PURPOSE, expiresAt));
+
+        // Then
+        assertThat(ticket.subject()).isEqualTo("alex@gmail.com");
+        assertThat(ticket.userId()).isEqualTo(1);
+        assertThat(ticket.tokenVersion()).isEqualTo(3);
+        assertThat(ticket.scopes()).containsExactly("ROLE_USER");
+        assertThat(ticket.purpose()).isEqualTo(JWTUtil.EVENT_STREAM_PURPOSE);
+        assertThat(token.purpose()).isNull();
+        assertThat(ticket.claims().getExpiration()).isBefore(Instant.now().plusSeconds(31));
+    }
+}
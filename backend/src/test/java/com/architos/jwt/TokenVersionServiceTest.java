@@ -0,0 +1,97 @@
+package com.architos.jwt;
+
+import com.architos.AbstractTestcontainers;
+import com.architos.customer.Customer;
+import com.architos.customer.CustomerDTORowMapper;
+import com.architos.customer.CustomerJDBCDataAccessService;
+import com.architos.customer.CustomerRowMapper;
+import com.architos.customer.CustomerUpdateRequest;
+import com.architos.customer.Gender;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenVersionServiceTest extends AbstractTestcontainers {
+
+    private TokenVersionService underTest;
+    private CustomerJDBCDataAccessService customerDao;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new TokenVersionService(
+                getJdbcTemplate(),
+                new JWTConfig(),
+                new SimpleMeterRegistry(),
+                mock(ApplicationEventPublisher.class));
+        customerDao = new CustomerJDBCDataAccessService(
+                getJdbcTemplate(),
+                new CustomerRowMapper(),
+                new CustomerDTORowMapper());
+    }
+
+    @Test
+    void emailChangeRevokesTokensIssuedForTheOldEmail() {
+        // Given
+        int id = insertCustomer();
+        VerifiedToken token = token(id, underTest.currentVersion(id));
+
+        // When
+        customerDao.patchCustomer(id, new CustomerUpdateRequest(null, uniqueEmail(), null));
+
+        // Then
+        assertThat(underTest.isCurrent(token)).isFalse();
+    }
+
+    @Test
+    void canRevokeByIdAfterEmailChange() {
+        // Given
+        int id = insertCustomer();
+        customerDao.patchCustomer(id, new CustomerUpdateRequest(null, uniqueEmail(), null));
+        VerifiedToken token = token(id, underTest.currentVersion(id));
+        assertThat(underTest.isCurrent(token)).isTrue();
+
+        // When
+        boolean revoked = underTest.revokeTokens(id);
+
+        // Then
+        assertThat(revoked).isTrue();
+        assertThat(underTest.isCurrent(token)).isFalse();
+    }
+
+    @Test
+    void otherChangesKeepTokensCurrent() {
+        // Given
+        int id = insertCustomer();
+        VerifiedToken token = token(id, underTest.currentVersion(id));
+
+        // When
+        customerDao.patchCustomer(id, new CustomerUpdateRequest("New Name", null, 42));
+
+        // Then
+        assertThat(underTest.isCurrent(token)).isTrue();
+    }
+
+    private int insertCustomer() {
+        return customerDao.insertCustomer(new Customer(
+                FAKER.name().fullName(), uniqueEmail(), "password", 20, Gender.MALE)).orElseThrow();
+    }
+
+    private static String uniqueEmail() {
+        return FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+    }
+
+    private static VerifiedToken token(int customerId, int version) {
+        Claims claims = Jwts.claims();
+        claims.put(JWTUtil.USER_ID_CLAIM, customerId);
+        claims.put(JWTUtil.TOKEN_VERSION_CLAIM, version);
+        return new VerifiedToken(claims);
+    }
+}
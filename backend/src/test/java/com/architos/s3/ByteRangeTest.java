@@ -0,0 +1,51 @@
+package com.architos.s3;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+
+    @Test
+    void canParseSingleRanges() {
+        assertThat(ByteRange.parse("bytes=0-99")).contains(new ByteRange(0L, 99L));
+        assertThat(ByteRange.parse("bytes=100-")).contains(new ByteRange(100L, null));
+        assertThat(ByteRange.parse("bytes=-500")).contains(new ByteRange(null, 500L));
+    }
+
+    @Test
+    void willIgnoreRangesItCannotServe() {
+        assertThat(ByteRange.parse("bytes=0-1,5-6")).isEmpty();
+        assertThat(ByteRange.parse("bytes=-")).isEmpty();
+        assertThat(ByteRange.parse("bytes=9-3")).isEmpty();
+        assertThat(ByteRange.parse("items=0-1")).isEmpty();
+    }
+
+    @Test
+    void canResolveAgainstLength() {
+        // Given
+        long length = 10;
+
+        // When
+        // Then
+        assertThat(new ByteRange(2L, 4L).resolve(length)).contains(new ByteRange.Span(2, 4));
+        assertThat(new ByteRange(2L, 400L).resolve(length)).contains(new ByteRange.Span(2, 9));
+        assertThat(new ByteRange(7L, null).resolve(length)).contains(new ByteRange.Span(7, 9));
+        assertThat(new ByteRange(null, 3L).resolve(length)).contains(new ByteRange.Span(7, 9));
+        assertThat(new ByteRange(null, 30L).resolve(length)).contains(new ByteRange.Span(0, 9));
+    }
+
+    @Test
+    void willNotResolveRangeStartingPastTheEnd() {
+        assertThat(new ByteRange(10L, null).resolve(10)).isEmpty();
+        assertThat(new ByteRange(null, 0L).resolve(10)).isEmpty();
+        assertThat(new ByteRange(null, 5L).resolve(0)).isEmpty();
+    }
+
+    @Test
+    void canFormatForS3AndContentRange() {
+        assertThat(new ByteRange(6L, null)).hasToString("bytes=6-");
+        assertThat(new ByteRange.Span(6, 10).contentRange(11)).isEqualTo("bytes 6-10/11");
+        assertThat(new ByteRange.Span(6, 10).length()).isEqualTo(5);
+    }
+}
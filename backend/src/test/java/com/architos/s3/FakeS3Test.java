@@ -0,0 +1,114 @@
+package com.architos.s3;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FakeS3Test {
+
+    private final FakeS3 underTest = new FakeS3();
+    private final String bucket = "fake-s3-test-" + UUID.randomUUID();
+    private final String key = "profile-images/1/image";
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(new File(
+                System.getProperty("user.home") + "/.architos/s3/" + bucket));
+    }
+
+    @Test
+    void canGetRangeOfObject() throws IOException {
+        // Given
+        put("Hello World");
+
+        // When
+        ResponseInputStream<GetObjectResponse> actual = get("bytes=6-");
+
+        // Then
+        assertThat(actual.response().contentRange()).isEqualTo("bytes 6-10/11");
+        assertThat(actual.response().contentLength()).isEqualTo(5L);
+        assertThat(new String(actual.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("World");
+    }
+
+    @Test
+    void canGetSuffixRangeOfObject() throws IOException {
+        // Given
+        put("Hello World");
+
+        // When
+        ResponseInputStream<GetObjectResponse> actual = get("bytes=-3");
+
+        // Then
+        assertThat(actual.response().contentRange()).isEqualTo("bytes 8-10/11");
+        assertThat(new String(actual.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("rld");
+    }
+
+    @Test
+    void canGetWholeObjectWithoutRange() throws IOException {
+        // Given
+        put("Hello World");
+
+        // When
+        ResponseInputStream<GetObjectResponse> actual = get(null);
+
+        // Then
+        assertThat(actual.response().contentRange()).isNull();
+        assertThat(actual.response().contentLength()).isEqualTo(11L);
+        assertThat(new String(actual.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("Hello World");
+    }
+
+    @Test
+    void canHeadObjectWithContentType() {
+        // Given
+        underTest.putObject(
+                PutObjectRequest.builder().bucket(bucket).key(key).contentType("image/png").build(),
+                RequestBody.fromString("Hello World"));
+
+        // When
+        HeadObjectResponse actual = underTest.headObject(
+                HeadObjectRequest.builder().bucket(bucket).key(key).build());
+
+        // Then
+        assertThat(actual.contentLength()).isEqualTo(11L);
+        assertThat(actual.contentType()).isEqualTo("image/png");
+    }
+
+    @Test
+    void willRejectRangeStartingPastTheEnd() {
+        // Given
+        put("Hello World");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> get("bytes=11-"))
+                .isInstanceOf(S3Exception.class)
+                .extracting("statusCode")
+                .isEqualTo(416);
+    }
+
+    private void put(String content) {
+        underTest.putObject(
+                PutObjectRequest.builder().bucket(bucket).key(key).build(),
+                RequestBody.fromString(content));
+    }
+
+    private ResponseInputStream<GetObjectResponse> get(String range) {
+        return underTest.getObject(GetObjectRequest.builder().bucket(bucket).key(key).range(range).build());
+    }
+}
@@ -1,5 +1,6 @@
 package com.architos.s3;
 
+import com.architos.exception.RangeNotSatisfiableException;
 import com.architos.exception.S3ServiceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,6 +76,35 @@ class S3ServiceTest {
                                                                 .readAllBytes());
         }
 
+        @Test
+        void canPutObjectFromStream() throws IOException {
+                // Given
+                String bucket = "customer";
+                String key = "foo";
+                byte[] data = "Hello World".getBytes();
+
+                // When
+                underTest.putObject(bucket, key, new ByteArrayInputStream(data), data.length, "image/png");
+
+                // Then
+                ArgumentCaptor<PutObjectRequest> putObjectRequestArgumentCaptor = ArgumentCaptor
+                                .forClass(PutObjectRequest.class);
+                ArgumentCaptor<RequestBody> requestBodyArgumentCaptor = ArgumentCaptor.forClass(RequestBody.class);
+
+                verify(s3Client).putObject(
+                                putObjectRequestArgumentCaptor.capture(),
+                                requestBodyArgumentCaptor.capture());
+
+                PutObjectRequest putObjectRequest = putObjectRequestArgumentCaptor.getValue();
+                assertThat(putObjectRequest.bucket()).isEqualTo(bucket);
+                assertThat(putObjectRequest.key()).isEqualTo(key);
+                assertThat(putObjectRequest.contentType()).isEqualTo("image/png");
+
+                RequestBody requestBody = requestBodyArgumentCaptor.getValue();
+                assertThat(requestBody.optionalContentLength()).contains((long) data.length);
+                assertThat(requestBody.contentStreamProvider().newStream().readAllBytes()).isEqualTo(data);
+        }
+
         @Test
         void canGetObject() throws IOException {
                 // Given
@@ -100,6 +130,80 @@ class S3ServiceTest {
                 assertThat(bytes).isEqualTo(data);
         }
 
+        @Test
+        void canOpenObjectStreamWithoutReadingIt() {
+                // Given
+                String bucket = "customer";
+                String key = "foo";
+                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .build();
+                ResponseInputStream<GetObjectResponse> res = new ResponseInputStream<>(
+                                GetObjectResponse.builder().contentLength(11L).contentType("image/png").build(),
+                                new ByteArrayInputStream("Hello World".getBytes()));
+                when(s3Client.getObject(eq(getObjectRequest))).thenReturn(res);
+
+                // When
+                ResponseInputStream<GetObjectResponse> actual = underTest.getObjectStream(bucket, key);
+
+                // Then
+                assertThat(actual).isSameAs(res);
+                assertThat(actual.response().contentType()).isEqualTo("image/png");
+        }
+
+        @Test
+        void canForwardRangeToS3() {
+                // Given
+                String bucket = "customer";
+                String key = "foo";
+                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .range("bytes=6-")
+                                .build();
+                ResponseInputStream<GetObjectResponse> res = new ResponseInputStream<>(
+                                GetObjectResponse.builder().contentLength(5L).contentRange("bytes 6-10/11").build(),
+                                new ByteArrayInputStream("World".getBytes()));
+                when(s3Client.getObject(eq(getObjectRequest))).thenReturn(res);
+
+                // When
+                ResponseInputStream<GetObjectResponse> actual = underTest.getObjectStream(
+                                bucket, key, new ByteRange(6L, null));
+
+                // Then
+                assertThat(actual.response().contentRange()).isEqualTo("bytes 6-10/11");
+        }
+
+        @Test
+        void willThrowRangeNotSatisfiableWithObjectLength() {
+                // Given
+                when(s3Client.getObject(any(GetObjectRequest.class)))
+                                .thenThrow(S3Exception.builder().statusCode(416).message("InvalidRange").build());
+                when(s3Client.headObject(any(HeadObjectRequest.class)))
+                                .thenReturn(HeadObjectResponse.builder().contentLength(11L).build());
+
+                // When
+                // Then
+                assertThatThrownBy(() -> underTest.getObjectStream("customer", "foo", new ByteRange(20L, null)))
+                                .isInstanceOf(RangeNotSatisfiableException.class)
+                                .extracting("length")
+                                .isEqualTo(11L);
+        }
+
+        @Test
+        void willThrowS3ServiceExceptionWhenObjectStreamKeyIsMissing() {
+                // Given
+                when(s3Client.getObject(any(GetObjectRequest.class)))
+                                .thenThrow(NoSuchKeyException.builder().message("missing").build());
+
+                // When
+                // Then
+                assertThatThrownBy(() -> underTest.getObjectStream("customer", "foo"))
+                                .isInstanceOf(S3ServiceException.class)
+                                .hasMessage("File not found in S3: foo");
+        }
+
         @Test
         void willThrowS3ServiceExceptionWhenGetObjectIOException() throws IOException {
                 // Given
@@ -247,6 +351,31 @@ class S3ServiceTest {
                 verify(s3Client).headObject(eq(headObjectRequest));
         }
 
+        @Test
+        void canHeadObject() {
+                // Given
+                HeadObjectResponse headObjectResponse = HeadObjectResponse.builder()
+                                .contentLength(100L)
+                                .contentType("image/png")
+                                .build();
+                when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(headObjectResponse);
+
+                // When
+                // Then
+                assertThat(underTest.headObject("customer", "foo")).contains(headObjectResponse);
+        }
+
+        @Test
+        void willReturnEmptyHeadWhenObjectDoesNotExist() {
+                // Given
+                when(s3Client.headObject(any(HeadObjectRequest.class)))
+                                .thenThrow(NoSuchKeyException.builder().message("missing").build());
+
+                // When
+                // Then
+                assertThat(underTest.headObject("customer", "foo")).isEmpty();
+        }
+
         @Test
         void willReturnFalseWhenObjectDoesNotExist() {
                 // Given
@@ -0,0 +1,92 @@
+package com.architos.s3;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3UrlSignerTest {
+
+    // signing needs no network, only credentials
+    private final S3Presigner presigner = S3Presigner.builder()
+            .region(Region.US_EAST_2)
+            .credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create("AKIAEXAMPLE", "secret")))
+            .build();
+    private final S3UrlSigner underTest = new S3UrlSigner(presigner, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+    }
+
+    @Test
+    void canPresignGetObject() {
+        // Given
+        Duration ttl = Duration.ofMinutes(10);
+
+        // When
+        PresignedUrl actual = underTest.presignGetObject("customer", "profile-images/1/abc", ttl);
+
+        // Then
+        assertThat(actual.url().getHost()).startsWith("customer.s3");
+        assertThat(actual.url().getPath()).isEqualTo("/profile-images/1/abc");
+        assertThat(actual.url().getQuery())
+                // the SDK counts from its own clock, a second may have passed
+                .containsPattern("X-Amz-Expires=(599|600)&")
+                .contains("X-Amz-Signature=");
+        assertThat(actual.expiresAt()).isAfter(Instant.now().plus(Duration.ofMinutes(9)));
+    }
+
+    @Test
+    void canPresignPutObjectWithContentConditions() {
+        // Given
+        Duration ttl = Duration.ofMinutes(5);
+
+        // When
+        PresignedUpload actual = underTest.presignPutObject(
+                "customer", "profile-images/1/abc", "image/png", 2048, ttl);
+
+        // Then
+        assertThat(actual.url().getPath()).isEqualTo("/profile-images/1/abc");
+        assertThat(actual.url().getQuery()).containsPattern("X-Amz-Expires=(299|300)&");
+        assertThat(actual.headers())
+                .containsEntry("Content-Type", "image/png")
+                .containsEntry("Content-Length", "2048")
+                .doesNotContainKey("Host");
+    }
+
+    @Test
+    void willReuseUnexpiredUrlForSameKey() {
+        // Given
+        Duration ttl = Duration.ofMinutes(10);
+        PresignedUrl first = underTest.presignGetObject("customer", "profile-images/1/abc", ttl);
+
+        // When
+        PresignedUrl actual = underTest.presignGetObject("customer", "profile-images/1/abc", ttl);
+
+        // Then
+        assertThat(actual).isSameAs(first);
+    }
+
+    @Test
+    void willSignEachKeySeparately() {
+        // Given
+        Duration ttl = Duration.ofMinutes(10);
+        PresignedUrl first = underTest.presignGetObject("customer", "profile-images/1/abc", ttl);
+
+        // When
+        PresignedUrl actual = underTest.presignGetObject("customer", "profile-images/2/def", ttl);
+
+        // Then
+        assertThat(actual.url()).isNotEqualTo(first.url());
+    }
+}
@@ -0,0 +1,185 @@
+package com.architos.security;
+
+import com.architos.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+    private PasswordHashingExecutor underTest;
+
+    @BeforeEach
+    void setUp() {
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        config.setBatchPoolSize(1);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new PasswordHashingExecutor(config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    void offloadingEncoderHashesOnThePool() {
+        // Given
+        OffloadingPasswordEncoder encoder =
+                new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), underTest);
+
+        // When
+        String hash = encoder.encode("password");
+
+        // Then
+        assertThat(encoder.matches("password", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("password_hashing_wait_duration").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void encodeAllHashesEveryPasswordInInputOrder() {
+        // Given
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(bcrypt, underTest);
+        List<String> passwords = List.of("one", "two", "three");
+
+        // When
+        List<String> hashes = encoder.encodeAll(passwords);
+
+        // Then
+        assertThat(hashes).hasSize(3);
+        for (int i = 0; i < passwords.size(); i++) {
+            assertThat(bcrypt.matches(passwords.get(i), hashes.get(i))).isTrue();
+        }
+    }
+
+    @Test
+    void batchDoesNotHoldTheThreadsSingleHashesUse() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<String>> batch = CompletableFuture.supplyAsync(() ->
+                underTest.executeAll(List.of("a", "b"), item -> {
+                    started.countDown();
+                    await(release);
+                    return item;
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        String actual = underTest.execute(() -> "login");
+
+        // Then
+        assertThat(actual).isEqualTo("login");
+        release.countDown();
+        assertThat(batch.get(5, TimeUnit.SECONDS)).containsExactly("a", "b");
+    }
+
+    @Test
+    void batchDeadlineGrowsWithItsSize() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setBatchPoolSize(1);
+        config.setTimeout(Duration.ofMillis(100));
+        config.setBatchItemTimeout(Duration.ofMillis(200));
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(config, new SimpleMeterRegistry());
+        List<Integer> items = Collections.nCopies(5, 0);
+
+        // When
+        try {
+            // 5 x 50ms on one thread is past the timeout but within 100ms + 5 x 200ms
+            List<Integer> actual = executor.executeAll(items, item -> sleep(50));
+
+            // Then
+            assertThat(actual).hasSize(5);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    void batchFailsWhenItMissesTheOverallDeadline() {
+        // Given
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setBatchPoolSize(1);
+        config.setTimeout(Duration.ofMillis(200));
+        config.setBatchItemTimeout(Duration.ofMillis(10));
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(config, new SimpleMeterRegistry());
+        List<Integer> items = Collections.nCopies(10, 0);
+
+        // When
+        // Then
+        try {
+            // 10 x 100ms on one thread is far past the 200ms + 10 x 10ms deadline
+            assertThatThrownBy(() -> executor.executeAll(items, item -> sleep(100)))
+                    .isInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.execute(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }), callers);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.execute(() -> "second"), callers);
+        while (meterRegistry.get("password_hashing_queue_depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.execute(() -> "third"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.get("password_hashing_rejections_total").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+        callers.shutdown();
+    }
+
+    private static int sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}